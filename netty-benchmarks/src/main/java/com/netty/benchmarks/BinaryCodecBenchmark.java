@@ -0,0 +1,92 @@
+package com.netty.benchmarks;
+
+import com.netty.unpack.codec.BinarySerializer;
+import com.netty.unpack.codec.FstSerializer;
+import com.netty.unpack.model.User;
+import com.netty.unpack.protocol.Request;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * unpack 的 Request（参数为 User）使用 FST 和编译时生成的编解码器编码、解码的耗时对比。
+ * 两者都直接读写同一个池化的直接内存 ByteBuf，setup 中会打印两种方式编码后的字节数。
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BinaryCodecBenchmark {
+
+    private Request request;
+
+    private ByteBuf out;
+    private ByteBuf fstBytes;
+    private ByteBuf binaryBytes;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        User user = new User();
+        user.setUsername("hyman");
+        user.setPassword("123456");
+        user.setAge(18);
+
+        request = new Request();
+        request.setRequestId(1L);
+        request.setClassName("com.netty.unpack.service.UserService");
+        request.setMethodName("save");
+        request.setParameter(user);
+
+        out = PooledByteBufAllocator.DEFAULT.directBuffer(1024);
+        fstBytes = PooledByteBufAllocator.DEFAULT.directBuffer(1024);
+        binaryBytes = PooledByteBufAllocator.DEFAULT.directBuffer(1024);
+        FstSerializer.serialize(request, fstBytes);
+        BinarySerializer.serialize(request, binaryBytes);
+        System.out.println("FST: " + fstBytes.readableBytes() + " 字节, 生成的编解码器: " + binaryBytes.readableBytes() + " 字节");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        out.release();
+        fstBytes.release();
+        binaryBytes.release();
+    }
+
+    @Benchmark
+    public int fstEncode() throws IOException {
+        out.clear();
+        return FstSerializer.serialize(request, out);
+    }
+
+    @Benchmark
+    public int binaryEncode() throws IOException {
+        out.clear();
+        return BinarySerializer.serialize(request, out);
+    }
+
+    @Benchmark
+    public Request fstDecode() throws IOException {
+        return FstSerializer.deserialize(fstBytes.duplicate(), fstBytes.readableBytes(), Request.class);
+    }
+
+    @Benchmark
+    public Request binaryDecode() throws IOException {
+        return BinarySerializer.deserialize(binaryBytes.duplicate(), binaryBytes.readableBytes(), Request.class);
+    }
+}
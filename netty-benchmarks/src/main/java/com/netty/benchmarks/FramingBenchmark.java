@@ -0,0 +1,160 @@
+package com.netty.benchmarks;
+
+import com.netty.unpack.model.User;
+import com.netty.unpack.protocol.BatchingTinyEncoder;
+import com.netty.unpack.protocol.Request;
+import com.netty.unpack.protocol.Response;
+import com.netty.unpack.protocol.TinyDecoder;
+import com.netty.unpack.protocol.TinyEncoder;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * netty-not-sticky-pack-demo 中 TinyEncoder / TinyDecoder 的分包编解码吞吐量。
+ * 使用 EmbeddedChannel，不经过网络，pipeline 与 unpack 的 Server 相同。
+ * 解码时每次写入 BATCH 个首尾相连的帧，模拟一次读到多个粘在一起的包。
+ * serve / serveBatched 走完整的服务端 pipeline：一次读到 BATCH 个请求，每个请求 write 一个响应，channelReadComplete 时
+ * flush 一次，与 ServerHandler 的写法相同，对比 BatchingTinyEncoder 与逐个编码的 TinyEncoder。
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FramingBenchmark {
+
+    private static final int BATCH = 64;
+
+    private EmbeddedChannel encoder;
+    private EmbeddedChannel decoder;
+    private EmbeddedChannel server;
+    private EmbeddedChannel batchingServer;
+    private Request request;
+
+    /**
+     * BATCH 个连续的帧
+     */
+    private ByteBuf frames;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        User user = new User();
+        user.setUsername("hyman");
+        user.setPassword("123456");
+        user.setAge(18);
+
+        request = new Request();
+        request.setRequestId(1L);
+        request.setClassName("com.netty.unpack.service.UserService");
+        request.setMethodName("save");
+        request.setParameter(user);
+
+        encoder = new EmbeddedChannel(new TinyEncoder(Request.class));
+        decoder = new EmbeddedChannel(new TinyDecoder(Request.class));
+        server = new EmbeddedChannel(new TinyDecoder(Request.class), new TinyEncoder(Response.class), new Responder());
+        batchingServer = new EmbeddedChannel(new TinyDecoder(Request.class), new BatchingTinyEncoder(Response.class),
+                new Responder());
+
+        frames = PooledByteBufAllocator.DEFAULT.directBuffer();
+        for (int i = 0; i < BATCH; i++) {
+            encoder.writeOutbound(request);
+            ByteBuf frame = encoder.readOutbound();
+            frames.writeBytes(frame);
+            frame.release();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        frames.release();
+        encoder.finishAndReleaseAll();
+        decoder.finishAndReleaseAll();
+        server.finishAndReleaseAll();
+        batchingServer.finishAndReleaseAll();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void encode(Blackhole blackhole) {
+        for (int i = 0; i < BATCH; i++) {
+            encoder.writeOutbound(request);
+            ByteBuf frame = encoder.readOutbound();
+            blackhole.consume(frame.readableBytes());
+            frame.release();
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void serve(Blackhole blackhole) {
+        serve(server, blackhole);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void serveBatched(Blackhole blackhole) {
+        serve(batchingServer, blackhole);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void decode(Blackhole blackhole) {
+        decoder.writeInbound(frames.retainedDuplicate());
+        Object message;
+        while ((message = decoder.readInbound()) != null) {
+            blackhole.consume(message);
+        }
+    }
+
+    /**
+     * writeInbound 对每个帧触发 channelRead，最后触发一次 channelReadComplete，与服务端一次读循环相同
+     */
+    private void serve(EmbeddedChannel channel, Blackhole blackhole) {
+        channel.writeInbound(frames.retainedDuplicate());
+        ByteBuf out;
+        while ((out = channel.readOutbound()) != null) {
+            blackhole.consume(out.readableBytes());
+            out.release();
+        }
+    }
+
+    /**
+     * 与 ServerHandler 相同的 write / flush 方式，去掉了打印
+     */
+    private static final class Responder extends SimpleChannelInboundHandler<Request> {
+
+        @Override
+        protected void channelRead0(ChannelHandlerContext ctx, Request request) {
+            Response response = new Response();
+            response.setRequestId(request.getRequestId());
+            response.setResult(request.getParameter());
+            ctx.write(response, ctx.voidPromise());
+        }
+
+        @Override
+        public void channelReadComplete(ChannelHandlerContext ctx) {
+            ctx.flush();
+            ctx.fireChannelReadComplete();
+        }
+    }
+}
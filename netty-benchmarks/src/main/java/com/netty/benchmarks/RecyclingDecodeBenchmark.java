@@ -0,0 +1,134 @@
+package com.netty.benchmarks;
+
+import com.netty.protobuf.DataInfo;
+import com.netty.protobuf.codec.ProtobufFrameDecoder;
+import com.netty.protobuf.codec.ProtobufFrameEncoder;
+import com.netty.protobuf.recycle.RecyclableDMessage;
+import com.netty.protobuf.recycle.RecyclingDMessageDecoder;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * netty-serialization-demo 中 DataInfo.DMessage 的两种解码方式：ProtobufFrameDecoder 每个消息创建新的不可变对象，
+ * RecyclingDMessageDecoder 解码到对象池中的 RecyclableDMessage，handler 用完后 release。
+ * 每次写入 BATCH 个首尾相连的帧，DataMaster 和 DataSlave 各占一半。
+ *
+ * 主要看分配速率，需要加上 GC profiler 运行：
+ * java -jar target/benchmarks.jar RecyclingDecodeBenchmark -prof gc
+ * 对比 gc.alloc.rate.norm（每个消息分配的字节数）和 gc.count。readNames 为 true 时每个消息都读取 name，
+ * RecyclableDMessage 这时也要创建 String，可以看出延迟创建 String 能省下多少。
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RecyclingDecodeBenchmark {
+
+    private static final int BATCH = 64;
+
+    @Param({"false", "true"})
+    private boolean readNames;
+
+    private EmbeddedChannel protobufDecoder;
+    private EmbeddedChannel recyclingDecoder;
+
+    /**
+     * BATCH 个连续的帧
+     */
+    private ByteBuf frames;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        protobufDecoder = new EmbeddedChannel(new ProtobufFrameDecoder<>(DataInfo.DMessage.getDefaultInstance()));
+        recyclingDecoder = new EmbeddedChannel(new RecyclingDMessageDecoder());
+
+        EmbeddedChannel encoder = new EmbeddedChannel(new ProtobufFrameEncoder());
+        frames = PooledByteBufAllocator.DEFAULT.directBuffer();
+        for (int i = 0; i < BATCH; i++) {
+            DataInfo.DMessage.Builder message = DataInfo.DMessage.newBuilder();
+            if (i % 2 == 0) {
+                message.setDataType(DataInfo.DMessage.DataType.DataMasterType)
+                        .setDataMaster(DataInfo.DataMaster.newBuilder().setId(i).setName("hyman" + i));
+            } else {
+                message.setDataType(DataInfo.DMessage.DataType.DataSlaveType)
+                        .setDataSlave(DataInfo.DataSlave.newBuilder().setName("worker" + i).setAge(20 + i));
+            }
+            encoder.writeOutbound(message.build());
+            ByteBuf frame = encoder.readOutbound();
+            frames.writeBytes(frame);
+            frame.release();
+        }
+        encoder.finishAndReleaseAll();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        frames.release();
+        protobufDecoder.finishAndReleaseAll();
+        recyclingDecoder.finishAndReleaseAll();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void protobuf(Blackhole blackhole) {
+        protobufDecoder.writeInbound(frames.retainedDuplicate());
+        DataInfo.DMessage message;
+        while ((message = protobufDecoder.readInbound()) != null) {
+            if (message.hasDataMaster()) {
+                blackhole.consume(message.getDataMaster().getId());
+                if (readNames) {
+                    blackhole.consume(message.getDataMaster().getName());
+                }
+            } else {
+                blackhole.consume(message.getDataSlave().getAge());
+                if (readNames) {
+                    blackhole.consume(message.getDataSlave().getName());
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void recycling(Blackhole blackhole) {
+        recyclingDecoder.writeInbound(frames.retainedDuplicate());
+        RecyclableDMessage message;
+        while ((message = recyclingDecoder.readInbound()) != null) {
+            try {
+                if (message.hasDataMaster()) {
+                    blackhole.consume(message.getDataMaster().getId());
+                    if (readNames) {
+                        blackhole.consume(message.getDataMaster().getName());
+                    }
+                } else {
+                    blackhole.consume(message.getDataSlave().getAge());
+                    if (readNames) {
+                        blackhole.consume(message.getDataSlave().getName());
+                    }
+                }
+            } finally {
+                message.release();
+            }
+        }
+    }
+}
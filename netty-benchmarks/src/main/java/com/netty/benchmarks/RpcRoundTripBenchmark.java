@@ -0,0 +1,136 @@
+package com.netty.benchmarks;
+
+import com.netty.dubborpc.netty.BusinessExecutor;
+import com.netty.dubborpc.netty.NettyClientHandler;
+import com.netty.dubborpc.netty.NettyServerHandler;
+import com.netty.dubborpc.netty.ServiceRegistry;
+import com.netty.dubborpc.protocol.RpcDecoder;
+import com.netty.dubborpc.protocol.RpcEncoder;
+import com.netty.dubborpc.protocol.ServiceDescriptor;
+import com.netty.dubborpc.serialize.Serializers;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.DefaultEventLoopGroup;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.local.LocalAddress;
+import io.netty.channel.local.LocalChannel;
+import io.netty.channel.local.LocalServerChannel;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * dubborpc 一次调用的往返延迟：客户端发出请求到收到响应。
+ * local 使用进程内的 LocalChannel，只包含编解码和 pipeline 的开销；tcp 走本机回环网络。
+ * 服务端直接在 I/O 线程上执行服务，排除业务线程池切换的影响。
+ * 直接调用 NettyClientHandler.send，不经过动态代理和负载均衡。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RpcRoundTripBenchmark {
+
+    public interface EchoService {
+        String echo(String message);
+    }
+
+    public static class EchoServiceImpl implements EchoService {
+
+        @Override
+        public String echo(String message) {
+            return message;
+        }
+    }
+
+    @Param({"local", "tcp"})
+    private String transport;
+
+    private EventLoopGroup serverGroup;
+    private EventLoopGroup clientGroup;
+    private Channel serverChannel;
+    private NettyClientHandler client;
+
+    private int serviceId;
+    private int methodId;
+    private Object[] args;
+    private byte serializer;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        ServiceRegistry registry = new ServiceRegistry().register(EchoService.class, new EchoServiceImpl());
+        ServiceDescriptor descriptor = ServiceDescriptor.of(EchoService.class);
+        serviceId = descriptor.getServiceId();
+        methodId = descriptor.getMethodId(EchoService.class.getMethod("echo", String.class));
+        args = new Object[]{"hello, netty"};
+        serializer = Serializers.DEFAULT.getId();
+
+        BusinessExecutor executor = BusinessExecutor.direct();
+        ServerBootstrap serverBootstrap = new ServerBootstrap()
+                .childHandler(new ChannelInitializer<Channel>() {
+
+                    @Override
+                    protected void initChannel(Channel ch) {
+                        ch.pipeline().addLast(new RpcDecoder(), new RpcEncoder(), new NettyServerHandler(registry, executor));
+                    }
+                });
+
+        client = new NettyClientHandler();
+        Bootstrap bootstrap = new Bootstrap()
+                .handler(new ChannelInitializer<Channel>() {
+
+                    @Override
+                    protected void initChannel(Channel ch) {
+                        ch.pipeline().addLast(new RpcDecoder(), new RpcEncoder(), client);
+                    }
+                });
+
+        if ("local".equals(transport)) {
+            serverGroup = new DefaultEventLoopGroup(1);
+            clientGroup = new DefaultEventLoopGroup(1);
+            serverChannel = serverBootstrap.group(serverGroup).channel(LocalServerChannel.class)
+                    .bind(new LocalAddress("rpc-benchmark")).sync().channel();
+            bootstrap.group(clientGroup).channel(LocalChannel.class);
+        } else {
+            serverGroup = new NioEventLoopGroup(1);
+            clientGroup = new NioEventLoopGroup(1);
+            serverChannel = serverBootstrap.group(serverGroup).channel(NioServerSocketChannel.class)
+                    .bind(new InetSocketAddress("127.0.0.1", 0)).sync().channel();
+            bootstrap.group(clientGroup).channel(NioSocketChannel.class);
+        }
+        bootstrap.connect(serverChannel.localAddress()).sync();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        client.close();
+        serverChannel.close().sync();
+        clientGroup.shutdownGracefully().sync();
+        serverGroup.shutdownGracefully().sync();
+    }
+
+    @Benchmark
+    public Object roundTrip() throws Exception {
+        return client.send(serviceId, methodId, args, serializer, 0).get();
+    }
+}
@@ -0,0 +1,89 @@
+package com.netty.benchmarks;
+
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.netty.fst.codec.FstSerializer;
+import com.netty.fst.model.User;
+import com.netty.protobuf.DataInfo;
+import com.netty.protobuf.StudentPOJO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * netty-serialization-demo 中几种序列化方式的编码、解码耗时：
+ * FstSerializer 序列化 User 对象，protobuf 序列化字段相近的 Student，以及带 oneof 的 DMessage。
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializationBenchmark {
+
+    private User user;
+    private StudentPOJO.Student student;
+    private DataInfo.DMessage message;
+
+    private byte[] userBytes;
+    private byte[] studentBytes;
+    private byte[] messageBytes;
+
+    @Setup
+    public void setup() {
+        user = new User();
+        user.setUsername("hyman");
+        user.setPassword("123456");
+        user.setAge(18);
+
+        student = StudentPOJO.Student.newBuilder().setId(18).setName("hyman").build();
+
+        message = DataInfo.DMessage.newBuilder()
+                .setDataType(DataInfo.DMessage.DataType.DataMasterType)
+                .setDataMaster(DataInfo.DataMaster.newBuilder().setId(18).setName("hyman").build())
+                .build();
+
+        userBytes = FstSerializer.serialize(user);
+        studentBytes = student.toByteArray();
+        messageBytes = message.toByteArray();
+    }
+
+    @Benchmark
+    public byte[] fstEncodeUser() {
+        return FstSerializer.serialize(user);
+    }
+
+    @Benchmark
+    public User fstDecodeUser() {
+        return FstSerializer.deserialize(userBytes, User.class);
+    }
+
+    @Benchmark
+    public byte[] protobufEncodeStudent() {
+        return student.toByteArray();
+    }
+
+    @Benchmark
+    public StudentPOJO.Student protobufDecodeStudent() throws InvalidProtocolBufferException {
+        return StudentPOJO.Student.parseFrom(studentBytes);
+    }
+
+    @Benchmark
+    public byte[] protobufEncodeDMessage() {
+        return message.toByteArray();
+    }
+
+    @Benchmark
+    public DataInfo.DMessage protobufDecodeDMessage() throws InvalidProtocolBufferException {
+        return DataInfo.DMessage.parseFrom(messageBytes);
+    }
+}
@@ -0,0 +1,23 @@
+package com.netty.codec;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 标记需要生成二进制编解码器的 POJO。
+ * 编译时 {@link com.netty.codec.processor.BinaryCodecProcessor} 为它生成同包下的 {@code 类名 + Codec}，
+ * 按字段的声明顺序调用 getter / setter 读写 ByteBuf，整数使用 varint，不使用反射，也不写类名等元数据。
+ *
+ * 要求：有无参构造方法，每个非 static、非 transient 字段都有 JavaBean 风格的 getter / setter（例如 Lombok 的 @Data）。
+ */
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.TYPE)
+public @interface BinaryCodec {
+
+    /**
+     * 类型编号，字段声明为 Object 时，码流中用它代替类名，必须大于 0 且全局唯一
+     */
+    int id();
+}
@@ -0,0 +1,30 @@
+package com.netty.codec;
+
+import io.netty.buffer.ByteBuf;
+
+import java.io.IOException;
+
+/**
+ * 一个类型的二进制编解码器，通常由 {@link com.netty.codec.processor.BinaryCodecProcessor} 生成
+ *
+ * @param <T> 编解码的类型
+ */
+public interface Codec<T> {
+
+    /**
+     * @return 类型编号，见 {@link BinaryCodec#id()}
+     */
+    int id();
+
+    Class<T> type();
+
+    /**
+     * 把 value 的各个字段写入 out，value 不为 null
+     */
+    void write(T value, ByteBuf out) throws IOException;
+
+    /**
+     * 从 in 中读出一个对象
+     */
+    T read(ByteBuf in) throws IOException;
+}
@@ -0,0 +1,190 @@
+package com.netty.codec;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 生成的编解码器使用的基本类型读写方法。
+ * 整数使用 varint：每个字节的低 7 位是数据，最高位表示后面还有字节，小的数只占 1 个字节；
+ * 有符号数先做 zigzag 变换（0, -1, 1, -2 ... 映射为 0, 1, 2, 3 ...），绝对值小的负数也很短。
+ * 可以为 null 的值（包装类型、String、byte[]）在前面带一个标记，null 只占 1 个字节。
+ */
+public final class CodecIO {
+
+    private CodecIO() {
+    }
+
+    public static void writeVarInt(ByteBuf out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    public static int readVarInt(ByteBuf in) throws IOException {
+        int result = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            byte b = in.readByte();
+            result |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return result;
+            }
+        }
+        throw new IOException("varint 超过了 5 个字节");
+    }
+
+    public static void writeVarLong(ByteBuf out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    public static long readVarLong(ByteBuf in) throws IOException {
+        long result = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.readByte();
+            result |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return result;
+            }
+        }
+        throw new IOException("varint 超过了 10 个字节");
+    }
+
+    public static void writeSInt(ByteBuf out, int value) {
+        writeVarInt(out, (value << 1) ^ (value >> 31));
+    }
+
+    public static int readSInt(ByteBuf in) throws IOException {
+        int n = readVarInt(in);
+        return (n >>> 1) ^ -(n & 1);
+    }
+
+    public static void writeSLong(ByteBuf out, long value) {
+        writeVarLong(out, (value << 1) ^ (value >> 63));
+    }
+
+    public static long readSLong(ByteBuf in) throws IOException {
+        long n = readVarLong(in);
+        return (n >>> 1) ^ -(n & 1);
+    }
+
+    public static void writeBoolean(ByteBuf out, boolean value) {
+        out.writeBoolean(value);
+    }
+
+    public static boolean readBoolean(ByteBuf in) {
+        return in.readBoolean();
+    }
+
+    public static void writeNullableInt(ByteBuf out, Integer value) {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            writeSInt(out, value);
+        }
+    }
+
+    public static Integer readNullableInt(ByteBuf in) throws IOException {
+        return in.readBoolean() ? readSInt(in) : null;
+    }
+
+    public static void writeNullableLong(ByteBuf out, Long value) {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            writeSLong(out, value);
+        }
+    }
+
+    public static Long readNullableLong(ByteBuf in) throws IOException {
+        return in.readBoolean() ? readSLong(in) : null;
+    }
+
+    /**
+     * 0 表示 null，1 表示 false，2 表示 true
+     */
+    public static void writeNullableBoolean(ByteBuf out, Boolean value) {
+        out.writeByte(value == null ? 0 : value ? 2 : 1);
+    }
+
+    public static Boolean readNullableBoolean(ByteBuf in) {
+        byte b = in.readByte();
+        return b == 0 ? null : b == 2;
+    }
+
+    /**
+     * varint 长度 + 1（0 表示 null），然后是 UTF-8 编码的字节
+     */
+    public static void writeString(ByteBuf out, String value) {
+        if (value == null) {
+            out.writeByte(0);
+            return;
+        }
+        writeVarInt(out, ByteBufUtil.utf8Bytes(value) + 1);
+        ByteBufUtil.writeUtf8(out, value);
+    }
+
+    public static String readString(ByteBuf in) throws IOException {
+        int length = readLength(in);
+        if (length < 0) {
+            return null;
+        }
+        String value = in.toString(in.readerIndex(), length, StandardCharsets.UTF_8);
+        in.skipBytes(length);
+        return value;
+    }
+
+    public static void writeByteArray(ByteBuf out, byte[] value) {
+        if (value == null) {
+            out.writeByte(0);
+            return;
+        }
+        writeVarInt(out, value.length + 1);
+        out.writeBytes(value);
+    }
+
+    public static byte[] readByteArray(ByteBuf in) throws IOException {
+        int length = readLength(in);
+        if (length < 0) {
+            return null;
+        }
+        byte[] value = new byte[length];
+        in.readBytes(value);
+        return value;
+    }
+
+    /**
+     * 写入类名，读取时按类名加载
+     */
+    public static void writeClass(ByteBuf out, Class<?> value) {
+        writeString(out, value == null ? null : value.getName());
+    }
+
+    public static Class<?> readClass(ByteBuf in) throws IOException {
+        String name = readString(in);
+        if (name == null) {
+            return null;
+        }
+        try {
+            return Class.forName(name, false, Thread.currentThread().getContextClassLoader());
+        } catch (ClassNotFoundException e) {
+            throw new IOException("找不到类: " + name, e);
+        }
+    }
+
+    /**
+     * 读取 writeString / writeByteArray 写入的长度，null 时返回 -1
+     */
+    private static int readLength(ByteBuf in) throws IOException {
+        int length = readVarInt(in) - 1;
+        if (length < -1 || length > in.readableBytes()) {
+            throw new IOException("长度 " + length + " 超过了剩余的字节数 " + in.readableBytes());
+        }
+        return length;
+    }
+}
@@ -0,0 +1,239 @@
+package com.netty.codec;
+
+import io.netty.buffer.ByteBuf;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.ServiceLoader;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 编解码器注册表，以及类型不固定（声明为 Object、List 等）的值的读写。
+ * 生成的编解码器会登记在 META-INF/services/com.netty.codec.Codec 中，类加载时通过 ServiceLoader 自动注册。
+ *
+ * 类型不固定的值先写一个字节的类型标记：常用的内置类型直接写值；有编解码器的类型写 varint 类型编号，再写各个字段；
+ * 其它类型交给 {@link FallbackCodec}，写 4 个字节的长度和它输出的字节。
+ */
+public final class Codecs {
+
+    private static final byte TAG_NULL = 0;
+    private static final byte TAG_STRING = 1;
+    private static final byte TAG_INTEGER = 2;
+    private static final byte TAG_LONG = 3;
+    private static final byte TAG_BOOLEAN = 4;
+    private static final byte TAG_BYTES = 5;
+    private static final byte TAG_LIST = 6;
+    private static final byte TAG_CODEC = 7;
+    private static final byte TAG_FALLBACK = 8;
+
+    private static final Map<Class<?>, Codec<?>> BY_CLASS = new ConcurrentHashMap<>();
+    private static final Map<Integer, Codec<?>> BY_ID = new ConcurrentHashMap<>();
+
+    private static volatile FallbackCodec fallback;
+
+    static {
+        for (Codec<?> codec : ServiceLoader.load(Codec.class, Codecs.class.getClassLoader())) {
+            register(codec);
+        }
+    }
+
+    private Codecs() {
+    }
+
+    /**
+     * 注册一个编解码器，类型编号不能与已注册的其它类型重复
+     */
+    public static synchronized void register(Codec<?> codec) {
+        if (codec.id() <= 0) {
+            throw new IllegalArgumentException("类型编号必须大于 0: " + codec.type().getName());
+        }
+        Codec<?> existing = BY_ID.get(codec.id());
+        if (existing != null && existing.type() != codec.type()) {
+            throw new IllegalStateException("类型编号 " + codec.id() + " 已被 " + existing.type().getName() + " 使用");
+        }
+        BY_ID.put(codec.id(), codec);
+        BY_CLASS.put(codec.type(), codec);
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <T> Codec<T> forClass(Class<T> type) {
+        return (Codec<T>) BY_CLASS.get(type);
+    }
+
+    public static Codec<?> forId(int id) {
+        return BY_ID.get(id);
+    }
+
+    /**
+     * @return value 的类型编号，value 为 null 或者它的类型没有编解码器时返回 0
+     */
+    public static int idOf(Object value) {
+        Codec<?> codec = value == null ? null : BY_CLASS.get(value.getClass());
+        return codec == null ? 0 : codec.id();
+    }
+
+    /**
+     * 设置没有编解码器的类型使用的序列化方式，不设置时遇到这样的类型会抛出异常
+     */
+    public static void setFallback(FallbackCodec fallbackCodec) {
+        fallback = fallbackCodec;
+    }
+
+    /**
+     * 写入声明类型已知的字段，codec 由生成的代码直接传入，不需要查表
+     */
+    public static <T> void writeNested(ByteBuf out, T value, Codec<T> codec) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            codec.write(value, out);
+        }
+    }
+
+    public static <T> T readNested(ByteBuf in, Codec<T> codec) throws IOException {
+        return in.readBoolean() ? codec.read(in) : null;
+    }
+
+    /**
+     * 写入 {@link TypedBy} 字段，typeId 大于 0 时直接调用该编号的编解码器，否则同 {@link #writeObject}
+     */
+    @SuppressWarnings("unchecked")
+    public static void writeTyped(ByteBuf out, int typeId, Object value) throws IOException {
+        if (typeId == 0) {
+            writeObject(out, value);
+            return;
+        }
+        Codec<Object> codec = (Codec<Object>) BY_ID.get(typeId);
+        if (codec == null) {
+            throw new IOException("未注册的类型编号: " + typeId);
+        }
+        if (value != null && value.getClass() != codec.type()) {
+            throw new IOException("类型编号 " + typeId + " 对应 " + codec.type().getName() + "，实际是 " + value.getClass().getName());
+        }
+        writeNested(out, value, codec);
+    }
+
+    public static Object readTyped(ByteBuf in, int typeId) throws IOException {
+        if (typeId == 0) {
+            return readObject(in);
+        }
+        Codec<?> codec = BY_ID.get(typeId);
+        if (codec == null) {
+            throw new IOException("未注册的类型编号: " + typeId);
+        }
+        return readNested(in, codec);
+    }
+
+    /**
+     * 写入一个类型不固定的值
+     */
+    @SuppressWarnings("unchecked")
+    public static void writeObject(ByteBuf out, Object value) throws IOException {
+        if (value == null) {
+            out.writeByte(TAG_NULL);
+        } else if (value instanceof String) {
+            out.writeByte(TAG_STRING);
+            CodecIO.writeString(out, (String) value);
+        } else if (value instanceof Integer) {
+            out.writeByte(TAG_INTEGER);
+            CodecIO.writeSInt(out, (Integer) value);
+        } else if (value instanceof Long) {
+            out.writeByte(TAG_LONG);
+            CodecIO.writeSLong(out, (Long) value);
+        } else if (value instanceof Boolean) {
+            out.writeByte(TAG_BOOLEAN);
+            out.writeBoolean((Boolean) value);
+        } else if (value instanceof byte[]) {
+            out.writeByte(TAG_BYTES);
+            CodecIO.writeByteArray(out, (byte[]) value);
+        } else {
+            Codec<Object> codec = (Codec<Object>) BY_CLASS.get(value.getClass());
+            if (codec != null) {
+                out.writeByte(TAG_CODEC);
+                CodecIO.writeVarInt(out, codec.id());
+                codec.write(value, out);
+            } else if (value instanceof List) {
+                List<?> list = (List<?>) value;
+                out.writeByte(TAG_LIST);
+                CodecIO.writeVarInt(out, list.size());
+                for (Object element : list) {
+                    writeObject(out, element);
+                }
+            } else {
+                writeFallback(out, value);
+            }
+        }
+    }
+
+    /**
+     * 读取 {@link #writeObject} 写入的值
+     */
+    public static Object readObject(ByteBuf in) throws IOException {
+        byte tag = in.readByte();
+        switch (tag) {
+            case TAG_NULL:
+                return null;
+            case TAG_STRING:
+                return CodecIO.readString(in);
+            case TAG_INTEGER:
+                return CodecIO.readSInt(in);
+            case TAG_LONG:
+                return CodecIO.readSLong(in);
+            case TAG_BOOLEAN:
+                return in.readBoolean();
+            case TAG_BYTES:
+                return CodecIO.readByteArray(in);
+            case TAG_LIST:
+                int size = CodecIO.readVarInt(in);
+                if (size < 0 || size > in.readableBytes()) {
+                    throw new IOException("非法的列表长度: " + size);
+                }
+                List<Object> list = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    list.add(readObject(in));
+                }
+                return list;
+            case TAG_CODEC:
+                int id = CodecIO.readVarInt(in);
+                Codec<?> codec = BY_ID.get(id);
+                if (codec == null) {
+                    throw new IOException("未注册的类型编号: " + id);
+                }
+                return codec.read(in);
+            case TAG_FALLBACK:
+                return readFallback(in);
+            default:
+                throw new IOException("未知的类型标记: " + tag);
+        }
+    }
+
+    private static void writeFallback(ByteBuf out, Object value) throws IOException {
+        FallbackCodec codec = fallback;
+        if (codec == null) {
+            throw new IOException("没有 " + value.getClass().getName() + " 的编解码器，也没有设置 FallbackCodec");
+        }
+        out.writeByte(TAG_FALLBACK);
+        int lengthIndex = out.writerIndex();
+        out.writeInt(0);
+        codec.write(value, out);
+        out.setInt(lengthIndex, out.writerIndex() - lengthIndex - 4);
+    }
+
+    private static Object readFallback(ByteBuf in) throws IOException {
+        FallbackCodec codec = fallback;
+        if (codec == null) {
+            throw new IOException("收到了需要 FallbackCodec 处理的数据，但没有设置 FallbackCodec");
+        }
+        int length = in.readInt();
+        if (length < 0 || length > in.readableBytes()) {
+            throw new IOException("非法的数据长度: " + length);
+        }
+        int start = in.readerIndex();
+        try {
+            return codec.read(in, length);
+        } finally {
+            in.readerIndex(start + length);
+        }
+    }
+}
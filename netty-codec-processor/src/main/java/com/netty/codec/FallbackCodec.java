@@ -0,0 +1,18 @@
+package com.netty.codec;
+
+import io.netty.buffer.ByteBuf;
+
+import java.io.IOException;
+
+/**
+ * 声明为 Object 的字段中出现了没有生成编解码器、也不是内置类型的对象时，交给它处理，例如使用 FST 序列化
+ */
+public interface FallbackCodec {
+
+    void write(Object value, ByteBuf out) throws IOException;
+
+    /**
+     * @param length 数据的字节数
+     */
+    Object read(ByteBuf in, int length) throws IOException;
+}
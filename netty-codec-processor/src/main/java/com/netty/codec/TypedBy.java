@@ -0,0 +1,21 @@
+package com.netty.codec;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 标记一个声明为 Object 的字段，它的类型编号保存在同一个类中前面声明的 int 字段里。
+ * 生成的编解码器按这个编号直接调用对应的编解码器，码流中不再重复写类型标记和类型编号；
+ * 编号为 0 时表示值没有编解码器，仍按 {@link Codecs#writeObject} 的方式写入。
+ */
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.FIELD)
+public @interface TypedBy {
+
+    /**
+     * 保存类型编号的字段名
+     */
+    String value();
+}
@@ -0,0 +1,337 @@
+package com.netty.codec.processor;
+
+import com.netty.codec.BinaryCodec;
+import com.netty.codec.TypedBy;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardLocation;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 为带有 {@link BinaryCodec} 注解的类生成 {@link com.netty.codec.Codec} 实现。
+ * 生成的代码按字段的声明顺序调用 getter / setter，基本类型和常用类型直接调用 {@link com.netty.codec.CodecIO} 中的方法，
+ * 字段类型也带有 @BinaryCodec 时直接调用它的编解码器，带有 {@link TypedBy} 的字段按类型编号字段选择编解码器，
+ * 其它类型交给 {@link com.netty.codec.Codecs#writeObject}。
+ * 所有生成的类写入 META-INF/services/com.netty.codec.Codec，运行时自动注册。
+ *
+ * 码流中没有字段名和字段编号，增加、删除或调整字段顺序后，收发两端需要同时更新。
+ */
+@SupportedAnnotationTypes({"com.netty.codec.BinaryCodec", "com.netty.codec.TypedBy"})
+public class BinaryCodecProcessor extends AbstractProcessor {
+
+    private static final String SERVICE_FILE = "META-INF/services/com.netty.codec.Codec";
+
+    /**
+     * 已生成的编解码器类名，最后一轮统一写入服务文件
+     */
+    private final List<String> generated = new ArrayList<>();
+
+    /**
+     * 类型编号 -> 类名，检查编号是否重复
+     */
+    private final Map<Integer, String> ids = new HashMap<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (Element element : roundEnv.getElementsAnnotatedWith(BinaryCodec.class)) {
+            if (element.getKind() != ElementKind.CLASS) {
+                error(element, "@BinaryCodec 只能用在类上");
+                continue;
+            }
+            TypeElement type = (TypeElement) element;
+            if (validate(type)) {
+                generate(type);
+            }
+        }
+
+        if (roundEnv.processingOver() && !generated.isEmpty()) {
+            writeServiceFile();
+        }
+        return true;
+    }
+
+    private boolean validate(TypeElement type) {
+        boolean valid = true;
+        if (type.getNestingKind() != NestingKind.TOP_LEVEL) {
+            error(type, "@BinaryCodec 只支持顶层类");
+            valid = false;
+        }
+        if (!type.getTypeParameters().isEmpty()) {
+            error(type, "@BinaryCodec 不支持泛型类");
+            valid = false;
+        }
+        if (type.getModifiers().contains(Modifier.ABSTRACT)) {
+            error(type, "@BinaryCodec 不支持抽象类");
+            valid = false;
+        }
+
+        List<ExecutableElement> constructors = ElementFilter.constructorsIn(type.getEnclosedElements());
+        boolean hasNoArgConstructor = constructors.isEmpty();
+        for (ExecutableElement constructor : constructors) {
+            if (constructor.getParameters().isEmpty() && !constructor.getModifiers().contains(Modifier.PRIVATE)) {
+                hasNoArgConstructor = true;
+            }
+        }
+        if (!hasNoArgConstructor) {
+            error(type, "@BinaryCodec 的类需要无参构造方法");
+            valid = false;
+        }
+
+        int id = type.getAnnotation(BinaryCodec.class).id();
+        String previous = ids.put(id, type.getQualifiedName().toString());
+        if (id <= 0) {
+            error(type, "@BinaryCodec 的 id 必须大于 0");
+            valid = false;
+        } else if (previous != null && !previous.contentEquals(type.getQualifiedName())) {
+            error(type, "@BinaryCodec 的 id " + id + " 与 " + previous + " 重复");
+            valid = false;
+        }
+        return valid;
+    }
+
+    private void generate(TypeElement type) {
+        String packageName = processingEnv.getElementUtils().getPackageOf(type).getQualifiedName().toString();
+        String typeName = type.getQualifiedName().toString();
+        String codecSimpleName = type.getSimpleName() + "Codec";
+        String codecName = packageName.isEmpty() ? codecSimpleName : packageName + "." + codecSimpleName;
+
+        StringBuilder fields = new StringBuilder();
+        StringBuilder writes = new StringBuilder();
+        StringBuilder reads = new StringBuilder();
+        // 已经处理过的 int 字段，@TypedBy 只能引用它们，读取时类型编号才会先于值被读出
+        Map<String, String> intGetters = new HashMap<>();
+
+        for (VariableElement field : ElementFilter.fieldsIn(type.getEnclosedElements())) {
+            Set<Modifier> modifiers = field.getModifiers();
+            if (modifiers.contains(Modifier.STATIC) || modifiers.contains(Modifier.TRANSIENT)) {
+                continue;
+            }
+            String name = field.getSimpleName().toString();
+            TypeMirror fieldType = field.asType();
+            String getter = "value." + getterName(name, fieldType) + "()";
+            String setter = "value." + setterName(name, fieldType);
+
+            if (fieldType.getKind() == TypeKind.INT) {
+                intGetters.put(name, getter);
+            }
+
+            TypedBy typedBy = field.getAnnotation(TypedBy.class);
+            if (typedBy != null) {
+                String typeIdGetter = intGetters.get(typedBy.value());
+                if (typeIdGetter == null) {
+                    error(field, "@TypedBy 引用的字段 " + typedBy.value() + " 必须是前面声明的 int 字段");
+                    return;
+                }
+                if (!"java.lang.Object".equals(fieldType.toString())) {
+                    error(field, "@TypedBy 只能用在声明为 Object 的字段上");
+                    return;
+                }
+                writes.append("        com.netty.codec.Codecs.writeTyped(out, ").append(typeIdGetter).append(", ")
+                        .append(getter).append(");\n");
+                reads.append("        ").append(setter).append("(com.netty.codec.Codecs.readTyped(in, ")
+                        .append(typeIdGetter).append("));\n");
+                continue;
+            }
+
+            String nestedCodec = nestedCodec(fieldType);
+            if (nestedCodec != null) {
+                String constant = "CODEC_" + name.toUpperCase();
+                fields.append("    private static final ").append(nestedCodec).append(' ').append(constant)
+                        .append(" = new ").append(nestedCodec).append("();\n");
+                writes.append("        com.netty.codec.Codecs.writeNested(out, ").append(getter).append(", ")
+                        .append(constant).append(");\n");
+                reads.append("        ").append(setter).append("(com.netty.codec.Codecs.readNested(in, ")
+                        .append(constant).append("));\n");
+                continue;
+            }
+
+            String[] io = primitiveIo(fieldType);
+            if (io != null) {
+                writes.append("        ").append(String.format(io[0], getter)).append(";\n");
+                reads.append("        ").append(setter).append('(').append(io[1]).append(");\n");
+            } else {
+                String erasure = processingEnv.getTypeUtils().erasure(fieldType).toString();
+                String cast = "java.lang.Object".equals(erasure) ? "" : "(" + erasure + ") ";
+                writes.append("        com.netty.codec.Codecs.writeObject(out, ").append(getter).append(");\n");
+                reads.append("        ").append(setter).append('(').append(cast)
+                        .append("com.netty.codec.Codecs.readObject(in));\n");
+            }
+        }
+
+        StringBuilder source = new StringBuilder();
+        if (!packageName.isEmpty()) {
+            source.append("package ").append(packageName).append(";\n\n");
+        }
+        source.append("/**\n")
+                .append(" * 由 BinaryCodecProcessor 根据 {@link ").append(typeName).append("} 生成，不要手工修改\n")
+                .append(" */\n")
+                .append("public final class ").append(codecSimpleName)
+                .append(" implements com.netty.codec.Codec<").append(typeName).append("> {\n\n")
+                .append("    public static final int ID = ").append(type.getAnnotation(BinaryCodec.class).id()).append(";\n\n")
+                .append(fields).append(fields.length() > 0 ? "\n" : "")
+                .append("    @Override\n")
+                .append("    public int id() {\n")
+                .append("        return ID;\n")
+                .append("    }\n\n")
+                .append("    @Override\n")
+                .append("    public Class<").append(typeName).append("> type() {\n")
+                .append("        return ").append(typeName).append(".class;\n")
+                .append("    }\n\n")
+                .append("    @Override\n")
+                .append("    public void write(").append(typeName)
+                .append(" value, io.netty.buffer.ByteBuf out) throws java.io.IOException {\n")
+                .append(writes)
+                .append("    }\n\n")
+                .append("    @Override\n")
+                .append("    public ").append(typeName)
+                .append(" read(io.netty.buffer.ByteBuf in) throws java.io.IOException {\n")
+                .append("        ").append(typeName).append(" value = new ").append(typeName).append("();\n")
+                .append(reads)
+                .append("        return value;\n")
+                .append("    }\n")
+                .append("}\n");
+
+        try {
+            JavaFileObject file = processingEnv.getFiler().createSourceFile(codecName, type);
+            try (Writer writer = file.openWriter()) {
+                writer.write(source.toString());
+            }
+            generated.add(codecName);
+        } catch (IOException e) {
+            error(type, "生成 " + codecName + " 失败: " + e);
+        }
+    }
+
+    /**
+     * @return {写入语句的格式，%s 为 getter 表达式; 读取表达式}，不是可以直接读写的类型时返回 null
+     */
+    private String[] primitiveIo(TypeMirror type) {
+        switch (type.getKind()) {
+            case INT:
+                return new String[]{"com.netty.codec.CodecIO.writeSInt(out, %s)", "com.netty.codec.CodecIO.readSInt(in)"};
+            case LONG:
+                return new String[]{"com.netty.codec.CodecIO.writeSLong(out, %s)", "com.netty.codec.CodecIO.readSLong(in)"};
+            case SHORT:
+                return new String[]{"com.netty.codec.CodecIO.writeSInt(out, %s)", "(short) com.netty.codec.CodecIO.readSInt(in)"};
+            case CHAR:
+                return new String[]{"com.netty.codec.CodecIO.writeVarInt(out, %s)", "(char) com.netty.codec.CodecIO.readVarInt(in)"};
+            case BYTE:
+                return new String[]{"out.writeByte(%s)", "in.readByte()"};
+            case BOOLEAN:
+                return new String[]{"com.netty.codec.CodecIO.writeBoolean(out, %s)", "com.netty.codec.CodecIO.readBoolean(in)"};
+            case FLOAT:
+                return new String[]{"out.writeFloat(%s)", "in.readFloat()"};
+            case DOUBLE:
+                return new String[]{"out.writeDouble(%s)", "in.readDouble()"};
+            case ARRAY:
+                if (((ArrayType) type).getComponentType().getKind() == TypeKind.BYTE) {
+                    return new String[]{"com.netty.codec.CodecIO.writeByteArray(out, %s)", "com.netty.codec.CodecIO.readByteArray(in)"};
+                }
+                return null;
+            case DECLARED:
+                String name = processingEnv.getTypeUtils().erasure(type).toString();
+                switch (name) {
+                    case "java.lang.String":
+                        return new String[]{"com.netty.codec.CodecIO.writeString(out, %s)", "com.netty.codec.CodecIO.readString(in)"};
+                    case "java.lang.Integer":
+                        return new String[]{"com.netty.codec.CodecIO.writeNullableInt(out, %s)", "com.netty.codec.CodecIO.readNullableInt(in)"};
+                    case "java.lang.Long":
+                        return new String[]{"com.netty.codec.CodecIO.writeNullableLong(out, %s)", "com.netty.codec.CodecIO.readNullableLong(in)"};
+                    case "java.lang.Boolean":
+                        return new String[]{"com.netty.codec.CodecIO.writeNullableBoolean(out, %s)", "com.netty.codec.CodecIO.readNullableBoolean(in)"};
+                    case "java.lang.Class":
+                        return new String[]{"com.netty.codec.CodecIO.writeClass(out, %s)", "com.netty.codec.CodecIO.readClass(in)"};
+                    default:
+                        return null;
+                }
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * @return 字段类型也带有 @BinaryCodec 时返回它的编解码器类名，否则返回 null
+     */
+    private String nestedCodec(TypeMirror type) {
+        if (type.getKind() != TypeKind.DECLARED) {
+            return null;
+        }
+        Element element = ((DeclaredType) type).asElement();
+        if (element.getAnnotation(BinaryCodec.class) == null || element.getModifiers().contains(Modifier.ABSTRACT)) {
+            return null;
+        }
+        return ((TypeElement) element).getQualifiedName() + "Codec";
+    }
+
+    /**
+     * 与 Lombok 生成的 getter 命名一致：boolean 字段为 isXxx，字段名本身以 is 开头时不再重复
+     */
+    private static String getterName(String field, TypeMirror type) {
+        if (type.getKind() == TypeKind.BOOLEAN) {
+            return startsWithIs(field) ? field : "is" + capitalize(field);
+        }
+        return "get" + capitalize(field);
+    }
+
+    private static String setterName(String field, TypeMirror type) {
+        if (type.getKind() == TypeKind.BOOLEAN && startsWithIs(field)) {
+            return "set" + field.substring(2);
+        }
+        return "set" + capitalize(field);
+    }
+
+    private static boolean startsWithIs(String field) {
+        return field.length() > 2 && field.startsWith("is") && Character.isUpperCase(field.charAt(2));
+    }
+
+    private static String capitalize(String name) {
+        return Character.toUpperCase(name.charAt(0)) + name.substring(1);
+    }
+
+    private void writeServiceFile() {
+        try {
+            FileObject file = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", SERVICE_FILE);
+            try (Writer writer = file.openWriter()) {
+                for (String name : generated) {
+                    writer.write(name);
+                    writer.write('\n');
+                }
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "写入 " + SERVICE_FILE + " 失败: " + e);
+        }
+    }
+
+    private void error(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+}
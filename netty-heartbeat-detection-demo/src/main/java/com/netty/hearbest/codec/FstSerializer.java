@@ -4,10 +4,18 @@
  */
 package com.netty.hearbest.codec;
 
+import com.netty.hearbest.model.RequestInfo;
 import org.nustaq.serialization.FSTConfiguration;
 
 public class FstSerializer {
-    private static FSTConfiguration conf = FSTConfiguration.createDefaultConfiguration();
+    /**
+     * 线程私有的配置，心跳包 RequestInfo 预先注册后只写类的编号
+     */
+    private static final ThreadLocal<FSTConfiguration> CONF = ThreadLocal.withInitial(() -> {
+        FSTConfiguration conf = FSTConfiguration.createDefaultConfiguration();
+        conf.registerClass(RequestInfo.class);
+        return conf;
+    });
 
     /**
      * 反序列化
@@ -18,7 +26,7 @@ public class FstSerializer {
      * @return
      */
     public static <T> T deserialize(byte[] data, Class<T> clazz) {
-        return (T) conf.asObject(data);
+        return (T) CONF.get().asObject(data);
     }
 
     /**
@@ -29,6 +37,6 @@ public class FstSerializer {
      * @return
      */
     public static <T> byte[] serialize(T obj) {
-        return conf.asByteArray(obj);
+        return CONF.get().asByteArray(obj);
     }
 }
\ No newline at end of file
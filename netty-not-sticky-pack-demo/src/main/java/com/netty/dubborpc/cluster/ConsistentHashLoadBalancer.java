@@ -0,0 +1,73 @@
+package com.netty.dubborpc.cluster;
+
+import com.netty.dubborpc.netty.ProviderPool;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 一致性哈希：参数相同的调用总是落到同一个提供方上，提供方增减时只有少部分调用会换到别的提供方。
+ * 每个提供方在哈希环上放置 replicas 个虚拟节点，使请求分布更均匀。
+ * 哈希环只在提供方列表发生变化（例如某个提供方变为不健康）时重建。
+ */
+public class ConsistentHashLoadBalancer implements LoadBalancer {
+
+    private static final int DEFAULT_REPLICAS = 160;
+
+    private final int replicas;
+    private volatile Ring ring;
+
+    public ConsistentHashLoadBalancer() {
+        this(DEFAULT_REPLICAS);
+    }
+
+    public ConsistentHashLoadBalancer(int replicas) {
+        this.replicas = replicas;
+    }
+
+    @Override
+    public ProviderPool select(List<ProviderPool> providers, Object[] args) {
+        Ring current = ring;
+        if (current == null || !current.providers.equals(providers)) {
+            current = new Ring(providers, replicas);
+            ring = current;
+        }
+        return current.select(hash(Arrays.deepHashCode(args)));
+    }
+
+    /**
+     * 对 hashCode 再做一次扰动，避免相近的 hashCode 在环上聚集
+     */
+    private static int hash(int h) {
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+
+    private static final class Ring {
+
+        private final List<ProviderPool> providers;
+        private final TreeMap<Integer, ProviderPool> nodes = new TreeMap<>();
+
+        Ring(List<ProviderPool> providers, int replicas) {
+            this.providers = new ArrayList<>(providers);
+            for (ProviderPool provider : providers) {
+                String address = provider.getAddress().toString();
+                for (int i = 0; i < replicas; i++) {
+                    nodes.put(hash((address + "#" + i).hashCode()), provider);
+                }
+            }
+        }
+
+        ProviderPool select(int hash) {
+            Map.Entry<Integer, ProviderPool> entry = nodes.ceilingEntry(hash);
+            return entry != null ? entry.getValue() : nodes.firstEntry().getValue();
+        }
+    }
+}
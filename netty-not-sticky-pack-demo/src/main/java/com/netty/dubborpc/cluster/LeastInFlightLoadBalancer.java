@@ -0,0 +1,32 @@
+package com.netty.dubborpc.cluster;
+
+import com.netty.dubborpc.netty.ProviderPool;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 最少在途请求：选择当前未返回的请求数最少的提供方，响应慢的提供方会自然地分到更少的请求。
+ * 在途请求数相同时随机选择，避免所有调用方同时压向列表中的第一个提供方。
+ */
+public class LeastInFlightLoadBalancer implements LoadBalancer {
+
+    @Override
+    public ProviderPool select(List<ProviderPool> providers, Object[] args) {
+        ProviderPool selected = null;
+        int least = Integer.MAX_VALUE;
+        int ties = 0;
+
+        for (ProviderPool provider : providers) {
+            int inFlight = provider.inFlight();
+            if (inFlight < least) {
+                least = inFlight;
+                selected = provider;
+                ties = 1;
+            } else if (inFlight == least && ThreadLocalRandom.current().nextInt(++ties) == 0) {
+                selected = provider;
+            }
+        }
+        return selected;
+    }
+}
@@ -0,0 +1,18 @@
+package com.netty.dubborpc.cluster;
+
+import com.netty.dubborpc.netty.ProviderPool;
+
+import java.util.List;
+
+/**
+ * 负载均衡器：从服务提供方列表中为一次调用选出一个提供方
+ */
+public interface LoadBalancer {
+
+    /**
+     * @param providers 可用的服务提供方，不为空
+     * @param args      本次调用的参数，一致性哈希根据它选择提供方
+     * @return 选中的服务提供方
+     */
+    ProviderPool select(List<ProviderPool> providers, Object[] args);
+}
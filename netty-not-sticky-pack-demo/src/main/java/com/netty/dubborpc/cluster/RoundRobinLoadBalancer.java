@@ -0,0 +1,19 @@
+package com.netty.dubborpc.cluster;
+
+import com.netty.dubborpc.netty.ProviderPool;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 轮询
+ */
+public class RoundRobinLoadBalancer implements LoadBalancer {
+
+    private final AtomicInteger next = new AtomicInteger();
+
+    @Override
+    public ProviderPool select(List<ProviderPool> providers, Object[] args) {
+        return providers.get((next.getAndIncrement() & Integer.MAX_VALUE) % providers.size());
+    }
+}
@@ -0,0 +1,250 @@
+package com.netty.dubborpc.netty;
+
+import io.netty.channel.Channel;
+import io.netty.util.AttributeKey;
+import io.netty.util.concurrent.DefaultEventExecutorGroup;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.RejectedExecutionHandlers;
+import io.netty.util.concurrent.SingleThreadEventExecutor;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 执行业务代码的线程池。
+ * NettyServerHandler 在 I/O 线程（NioEventLoop）上解码出请求后，把服务调用交给它执行，这样一个慢的服务调用不会阻塞
+ * 同一个 EventLoop 上的其它连接。队列满时 execute 抛出 RejectedExecutionException，由调用方直接给客户端返回错误，
+ * 而不是无限制地堆积任务。
+ */
+public interface BusinessExecutor {
+
+    /**
+     * 提交一个任务
+     *
+     * @param channel 发起请求的连接，有序执行器据此保证同一连接上的任务按顺序执行
+     * @param task    任务
+     * @throws RejectedExecutionException 队列已满
+     */
+    void execute(Channel channel, Runnable task);
+
+    /**
+     * @return 已提交但还未执行完的任务数
+     */
+    int queueDepth();
+
+    /**
+     * @return 因队列已满被拒绝的任务数
+     */
+    long rejectedCount();
+
+    void shutdown();
+
+    /**
+     * 直接在 I/O 线程上执行，即原来的行为
+     */
+    static BusinessExecutor direct() {
+        return new Direct();
+    }
+
+    /**
+     * 固定大小、有界队列的线程池，同一连接上的请求可能被并发执行
+     *
+     * @param threads       线程数
+     * @param queueCapacity 队列容量
+     */
+    static BusinessExecutor bounded(int threads, int queueCapacity) {
+        return new Bounded(threads, queueCapacity);
+    }
+
+    /**
+     * 有序执行器：每个连接固定绑定到一个单线程执行器上，同一连接上的请求按到达顺序依次执行
+     *
+     * @param threads             单线程执行器的个数
+     * @param maxPendingPerThread 每个单线程执行器的队列容量
+     */
+    static BusinessExecutor ordered(int threads, int maxPendingPerThread) {
+        return new Ordered(threads, maxPendingPerThread);
+    }
+
+    /**
+     * JDK 21 及以上使用虚拟线程，每个请求一个虚拟线程，最多同时执行 maxConcurrent 个；
+     * 更低版本的 JDK 上退化为 {@link #bounded(int, int)}
+     *
+     * @param maxConcurrent 同时执行的最大任务数
+     */
+    static BusinessExecutor virtualThreads(int maxConcurrent) {
+        try {
+            Method factory = java.util.concurrent.Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return new Virtual((ExecutorService) factory.invoke(null), maxConcurrent);
+        } catch (ReflectiveOperationException e) {
+            System.out.println("当前 JDK 不支持虚拟线程，使用有界线程池代替");
+            return bounded(Runtime.getRuntime().availableProcessors() * 2, maxConcurrent);
+        }
+    }
+
+    class Direct implements BusinessExecutor {
+
+        @Override
+        public void execute(Channel channel, Runnable task) {
+            task.run();
+        }
+
+        @Override
+        public int queueDepth() {
+            return 0;
+        }
+
+        @Override
+        public long rejectedCount() {
+            return 0;
+        }
+
+        @Override
+        public void shutdown() {
+        }
+    }
+
+    class Bounded implements BusinessExecutor {
+
+        private final ThreadPoolExecutor executor;
+        private final AtomicLong rejected = new AtomicLong();
+
+        Bounded(int threads, int queueCapacity) {
+            executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(queueCapacity), new DefaultThreadFactory("rpc-business"),
+                    (task, pool) -> {
+                        rejected.incrementAndGet();
+                        throw new RejectedExecutionException("业务线程池已满");
+                    });
+        }
+
+        @Override
+        public void execute(Channel channel, Runnable task) {
+            executor.execute(task);
+        }
+
+        @Override
+        public int queueDepth() {
+            return executor.getQueue().size() + executor.getActiveCount();
+        }
+
+        @Override
+        public long rejectedCount() {
+            return rejected.get();
+        }
+
+        @Override
+        public void shutdown() {
+            executor.shutdown();
+        }
+    }
+
+    class Ordered implements BusinessExecutor {
+
+        private static final AttributeKey<EventExecutor> EXECUTOR = AttributeKey.valueOf("rpc-ordered-executor");
+
+        private final DefaultEventExecutorGroup group;
+        private final AtomicLong rejected = new AtomicLong();
+
+        Ordered(int threads, int maxPendingPerThread) {
+            group = new DefaultEventExecutorGroup(threads, new DefaultThreadFactory("rpc-ordered"),
+                    maxPendingPerThread, RejectedExecutionHandlers.reject());
+        }
+
+        @Override
+        public void execute(Channel channel, Runnable task) {
+            EventExecutor executor = channel.attr(EXECUTOR).get();
+            if (executor == null) {
+                EventExecutor next = group.next();
+                executor = channel.attr(EXECUTOR).setIfAbsent(next);
+                if (executor == null) {
+                    executor = next;
+                }
+            }
+
+            try {
+                executor.execute(task);
+            } catch (RejectedExecutionException e) {
+                rejected.incrementAndGet();
+                throw e;
+            }
+        }
+
+        @Override
+        public int queueDepth() {
+            int depth = 0;
+            for (EventExecutor executor : group) {
+                depth += ((SingleThreadEventExecutor) executor).pendingTasks();
+            }
+            return depth;
+        }
+
+        @Override
+        public long rejectedCount() {
+            return rejected.get();
+        }
+
+        @Override
+        public void shutdown() {
+            group.shutdownGracefully();
+        }
+    }
+
+    class Virtual implements BusinessExecutor {
+
+        private final ExecutorService executor;
+        private final Semaphore permits;
+        private final int maxConcurrent;
+        private final AtomicLong rejected = new AtomicLong();
+
+        Virtual(ExecutorService executor, int maxConcurrent) {
+            this.executor = executor;
+            this.permits = new Semaphore(maxConcurrent);
+            this.maxConcurrent = maxConcurrent;
+        }
+
+        @Override
+        public void execute(Channel channel, Runnable task) {
+            if (!permits.tryAcquire()) {
+                rejected.incrementAndGet();
+                throw new RejectedExecutionException("同时执行的任务数已达上限 " + maxConcurrent);
+            }
+
+            try {
+                executor.execute(() -> {
+                    try {
+                        task.run();
+                    } finally {
+                        permits.release();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                permits.release();
+                rejected.incrementAndGet();
+                throw e;
+            }
+        }
+
+        @Override
+        public int queueDepth() {
+            return maxConcurrent - permits.availablePermits();
+        }
+
+        @Override
+        public long rejectedCount() {
+            return rejected.get();
+        }
+
+        @Override
+        public void shutdown() {
+            executor.shutdown();
+        }
+    }
+}
@@ -1,84 +1,241 @@
 package com.netty.dubborpc.netty;
 
-import io.netty.bootstrap.Bootstrap;
-import io.netty.channel.ChannelInitializer;
-import io.netty.channel.ChannelOption;
-import io.netty.channel.ChannelPipeline;
+import com.netty.dubborpc.cluster.LoadBalancer;
+import com.netty.dubborpc.cluster.RoundRobinLoadBalancer;
+import com.netty.dubborpc.protocol.ServiceDescriptor;
+import com.netty.dubborpc.serialize.Serializer;
+import com.netty.dubborpc.serialize.Serializers;
 import io.netty.channel.nio.NioEventLoopGroup;
-import io.netty.channel.socket.SocketChannel;
-import io.netty.channel.socket.nio.NioSocketChannel;
-import io.netty.handler.codec.string.StringDecoder;
-import io.netty.handler.codec.string.StringEncoder;
+import io.netty.util.ReferenceCountUtil;
 
+import java.lang.reflect.Method;
 import java.lang.reflect.Proxy;
-import java.util.concurrent.Executor;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 服务消费方。
+ * 每个服务提供方地址对应一个 {@link ProviderPool} 连接池，每次调用先由 {@link LoadBalancer} 选出提供方，
+ * 再从它的连接池中取一个连接发送请求。所有连接共享同一个 EventLoopGroup。
+ */
 public class NettyClient {
 
-    private static ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+    private final NioEventLoopGroup group = new NioEventLoopGroup();
+    private final List<ProviderPool> providers;
+    private final LoadBalancer loadBalancer;
+    private final AtomicInteger count = new AtomicInteger();
+
+    /**
+     * 方法上没有 {@link com.netty.dubborpc.protocol.RpcTimeout}、调用时也没有通过 {@link RpcContext} 指定时使用的超时时间
+     */
+    private volatile int defaultTimeoutMillis = 3000;
+
+    /**
+     * 连接本机 7000 端口上的单个服务提供方
+     */
+    public NettyClient() {
+        this(Collections.singletonList(new InetSocketAddress("127.0.0.1", 7000)), 1, new RoundRobinLoadBalancer());
+    }
 
-    private static NettyClientHandler client;
-    private int count = 0;
+    /**
+     * @param addresses              服务提供方地址列表
+     * @param connectionsPerProvider 每个提供方的连接数
+     * @param loadBalancer           负载均衡策略
+     */
+    public NettyClient(List<InetSocketAddress> addresses, int connectionsPerProvider, LoadBalancer loadBalancer) {
+        if (addresses.isEmpty()) {
+            throw new IllegalArgumentException("服务提供方列表为空");
+        }
+        List<ProviderPool> pools = new ArrayList<>(addresses.size());
+        for (InetSocketAddress address : addresses) {
+            pools.add(new ProviderPool(address, connectionsPerProvider, group));
+        }
+        this.providers = Collections.unmodifiableList(pools);
+        this.loadBalancer = loadBalancer;
+    }
 
     /**
      * 编写方法使用代理模式，获取一个代理对象
      *
      * @param serivceClass
-     * @param protocol
      * @return
      */
-    public Object getBean(final Class<?> serivceClass, final String protocol) {
+    public Object getBean(final Class<?> serivceClass) {
+        return getBean(serivceClass, Serializers.DEFAULT);
+    }
 
+    /**
+     * 获取一个代理对象，该服务的参数和返回值使用指定的序列化方式，服务提供方会用同样的方式返回结果
+     *
+     * @param serivceClass
+     * @param serializer   序列化方式，需要已在 {@link Serializers} 中注册
+     * @return
+     */
+    public Object getBean(final Class<?> serivceClass, final Serializer serializer) {
+
+        byte serializerId = serializer.getId();
+        ServiceDescriptor descriptor = ServiceDescriptor.of(serivceClass);
         return Proxy.newProxyInstance(Thread.currentThread().getContextClassLoader(),
                 new Class<?>[]{serivceClass}, (proxy, method, args) -> {
 
-                    System.out.println("(proxy, method, args) 进入...." + (++count) + " 次");
+                    // toString、hashCode、equals 等 Object 的方法在本地处理，不发送给服务端
+                    if (method.getDeclaringClass() == Object.class) {
+                        return invokeObjectMethod(serivceClass, proxy, method, args);
+                    }
+
+                    System.out.println("(proxy, method, args) 进入...." + count.incrementAndGet() + " 次");
 
                     // 客户端每通过代理对象，调用一次 helloservice 方法, 就会进入到该 {} 部分的代码
-                    if (client == null) {
-                        initClient();
+                    int methodId = descriptor.getMethodId(method);
+                    boolean async = descriptor.isAsync(methodId);
+
+                    // 超时时间的优先级：本次调用通过 RpcContext 指定 > 方法上的 @RpcTimeout > 客户端默认值。
+                    // 在取连接之前取出，取连接失败时也不会留给当前线程的下一次调用
+                    int timeoutMillis = RpcContext.takeTimeout();
+                    if (timeoutMillis == 0) {
+                        timeoutMillis = descriptor.getTimeoutMillis(methodId);
+                    }
+                    if (timeoutMillis == 0) {
+                        timeoutMillis = defaultTimeoutMillis;
                     }
 
-                    //设置要发给服务器端的信息，providerName 为协议头，args[0] 为客户端调用 api hello(???) 的参数
-                    client.setPara(protocol + args[0]);
-                    return executor.submit(client).get();
+                    // 发给服务器端的只有服务 id、方法 id、超时时间和参数。
+                    // 多个线程可以同时调用，所有请求共享连接池中的 channel，响应按请求 id 匹配回各自的 future。
+                    // 需要新建连接时不等待，连接建立后再在 I/O 线程上发送，调用线程和 I/O 线程都不会被阻塞
+                    CompletableFuture<Object> future = call(args, descriptor.getServiceId(), methodId, serializerId,
+                            timeoutMillis);
+
+                    // 返回值声明为 CompletableFuture / CompletionStage 的方法直接返回 future，调用线程不会被阻塞。
+                    // 注意 future 在 I/O 线程上完成，回调中不要执行耗时的操作，需要时使用 thenApplyAsync 等方法切换线程
+                    return async ? future : await(future);
                 });
     }
 
     /**
-     * 初始化客户端
+     * 等待结果。建立连接有连接超时，请求的超时由连接的 EventLoop 上的定时任务负责结束 future，因此这里不会永远阻塞
      */
-    private static void initClient() {
+    private static Object await(CompletableFuture<Object> future) throws Throwable {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            throw e.getCause();
+        }
+    }
 
-        client = new NettyClientHandler();
+    /**
+     * @param defaultTimeoutMillis 默认超时时间，单位毫秒，0 表示不限制
+     */
+    public void setDefaultTimeoutMillis(int defaultTimeoutMillis) {
+        this.defaultTimeoutMillis = defaultTimeoutMillis;
+    }
 
-        NioEventLoopGroup group = new NioEventLoopGroup();
-        Bootstrap bootstrap = new Bootstrap();
-        bootstrap.group(group)
-                .channel(NioSocketChannel.class)
+    /**
+     * 取得连接后发送请求，返回的 future 以 send 的结果结束，异常不会被包装成 CompletionException。
+     * 调用方取消返回的 future 时，已经发出的请求也随之取消，移出 pending 表
+     */
+    private CompletableFuture<Object> call(Object[] args, int serviceId, int methodId, byte serializerId,
+                                           int timeoutMillis) {
+        CompletableFuture<Object> result = new CompletableFuture<>();
+        acquire(args, 1).whenComplete((client, cause) -> {
+            if (cause != null) {
+                releaseArgs(args);
+                result.completeExceptionally(cause);
+                return;
+            }
+            if (result.isDone()) {
+                // 连接建立之前调用方已经取消
+                releaseArgs(args);
+                return;
+            }
+
+            CompletableFuture<Object> sent = client.send(serviceId, methodId, args, serializerId, timeoutMillis);
+            result.whenComplete((value, error) -> sent.cancel(false));
+            sent.whenComplete((value, error) -> {
+                if (error != null) {
+                    result.completeExceptionally(error);
+                } else if (!result.complete(value)) {
+                    ReferenceCountUtil.release(value);
+                }
+            });
+        });
+        return result;
+    }
 
-                // 设置为不延迟
-                .option(ChannelOption.TCP_NODELAY, true)
+    /**
+     * 请求没有发出去时，交给框架的参数（例如 RawBytesSerializer 的 ByteBuf）在这里释放
+     */
+    static void releaseArgs(Object[] args) {
+        if (args != null) {
+            for (Object arg : args) {
+                ReferenceCountUtil.release(arg);
+            }
+        }
+    }
+
+    /**
+     * 选中的提供方连接失败时会被标记为不健康，此时换一个提供方重试，最多尝试提供方个数次。
+     * 不阻塞：返回的 future 在连接建立后完成，全部失败时以最后一次的 {@link RpcException} 结束
+     */
+    private CompletableFuture<NettyClientHandler> acquire(Object[] args, int attempt) {
+        CompletableFuture<NettyClientHandler> connection = selectProvider(args).acquireAsync();
+        if (attempt >= providers.size()) {
+            return connection;
+        }
+        CompletableFuture<NettyClientHandler> result = new CompletableFuture<>();
+        connection.whenComplete((client, cause) -> {
+            if (cause == null) {
+                result.complete(client);
+            } else {
+                acquire(args, attempt + 1).whenComplete((retried, retryCause) -> {
+                    if (retryCause == null) {
+                        result.complete(retried);
+                    } else {
+                        result.completeExceptionally(retryCause);
+                    }
+                });
+            }
+        });
+        return result;
+    }
 
-                .handler(
-                        new ChannelInitializer<SocketChannel>() {
+    /**
+     * 只在健康的提供方中做负载均衡；全部不健康时仍然从所有提供方中选择，让连接有机会恢复
+     */
+    private ProviderPool selectProvider(Object[] args) {
+        List<ProviderPool> healthy = new ArrayList<>(providers.size());
+        for (ProviderPool provider : providers) {
+            if (provider.isHealthy()) {
+                healthy.add(provider);
+            }
+        }
+        return loadBalancer.select(healthy.isEmpty() ? providers : healthy, args);
+    }
 
-                            @Override
-                            protected void initChannel(SocketChannel ch) throws Exception {
-                                ChannelPipeline pipeline = ch.pipeline();
-                                pipeline.addLast(new StringDecoder());
-                                pipeline.addLast(new StringEncoder());
-                                pipeline.addLast(client);
-                            }
-                        }
-                );
+    private static Object invokeObjectMethod(Class<?> serivceClass, Object proxy, Method method, Object[] args) {
+        switch (method.getName()) {
+            case "equals":
+                return proxy == args[0];
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "toString":
+                return serivceClass.getName() + "@" + Integer.toHexString(System.identityHashCode(proxy));
+            default:
+                throw new UnsupportedOperationException(method.toString());
+        }
+    }
 
-        try {
-            bootstrap.connect("127.0.0.1", 7000).sync();
-        } catch (Exception e) {
-            e.printStackTrace();
+    /**
+     * 关闭所有连接
+     */
+    public void close() {
+        for (ProviderPool provider : providers) {
+            provider.close();
         }
+        group.shutdownGracefully();
     }
 }
@@ -1,65 +1,191 @@
 package com.netty.dubborpc.netty;
 
+import com.netty.dubborpc.protocol.RpcRequest;
+import com.netty.dubborpc.protocol.RpcResponse;
+import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelHandlerContext;
-import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.util.ReferenceCountUtil;
+import io.netty.util.concurrent.ScheduledFuture;
 
-import java.util.concurrent.Callable;
+import java.nio.channels.ClosedChannelException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
-public class NettyClientHandler extends ChannelInboundHandlerAdapter implements Callable {
+/**
+ * 多路复用的客户端处理器：每次调用分配一个请求 id，并把对应的 CompletableFuture 放入 pending 表中。
+ * 服务端的响应带回相同的 id，channelRead 根据 id 找到 future 并完成它。因此同一个 channel 上可以同时有任意多个在途请求，
+ * 不再需要 synchronized + wait/notify 把所有调用串行化。
+ */
+public class NettyClientHandler extends SimpleChannelInboundHandler<RpcResponse> {
 
     /**
      * 上下文
      */
-    private ChannelHandlerContext context;
+    private volatile ChannelHandlerContext context;
 
     /**
-     * 返回的结果
+     * 请求 id 生成器
      */
-    private String result;
+    private final AtomicLong idGenerator = new AtomicLong();
 
     /**
-     * 客户端调用方法时，传入的参数
+     * 在途请求：请求 id -> 等待结果的 future
      */
-    private String para;
+    private final Map<Long, CompletableFuture<Object>> pending = new ConcurrentHashMap<>();
+
+    /**
+     * 在 handler 加入 pipeline 时就保存上下文，保证 connect().sync() 返回后即可发送
+     */
+    @Override
+    public void handlerAdded(ChannelHandlerContext ctx) throws Exception {
+        context = ctx;
+    }
 
     @Override
     public void channelActive(ChannelHandlerContext ctx) throws Exception {
         System.out.println(" channelActive 被调用  ");
-        context = ctx;
     }
 
+    /**
+     * 根据响应中的请求 id 完成对应的 future
+     */
+    @Override
+    protected void channelRead0(ChannelHandlerContext ctx, RpcResponse response) throws Exception {
+        CompletableFuture<Object> future = pending.remove(response.getRequestId());
+        if (response.getError() != null) {
+            if (future != null) {
+                future.completeExceptionally(new RpcException(response.getError()));
+            }
+        } else if (future == null || !future.complete(response.getResult())) {
+            // 已经超时或被取消，没有人会拿到这个结果，引用计数的结果（例如 RawBytesSerializer 的 ByteBuf）在这里释放
+            ReferenceCountUtil.release(response.getResult());
+        }
+    }
+
+    /**
+     * 连接断开时，所有在途请求都不会再有响应，直接以异常结束
+     */
     @Override
-    public synchronized void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
-        System.out.println(" channelRead 被调用  ");
-        result = msg.toString();
-        notify();
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        failAll(new RpcException("与服务提供方的连接已断开", new ClosedChannelException()));
+        super.channelInactive(ctx);
     }
 
     @Override
     public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) throws Exception {
+        failAll(new RpcException("连接异常", cause));
         ctx.close();
     }
 
     /**
-     * 被代理对象调用，发送数据给服务器 -> wait -> 等待被唤醒(channelRead) -> 返回结果。
-     * 因此 call() 与 channelRead() 是相互同步的方法，所以要加上锁，并使用 wait notify 唤醒。
+     * 被代理对象调用，发送数据给服务器，并立即返回一个 future，不阻塞当前线程。
+     * 也可以在连接建立后直接调用，不经过动态代理和负载均衡，例如基准测试中测量单个连接的往返延迟。
      *
-     * @return
-     * @throws Exception
+     * @param serviceId     服务 id
+     * @param methodId      方法 id
+     * @param args          客户端调用方法时，传入的参数
+     * @param serializer    参数和返回值的序列化方式
+     * @param timeoutMillis 超时时间，单位毫秒，0 表示不限制
+     * @return 服务器返回结果的 future，超时、连接断开或被取消时会从 pending 表中移除
      */
-    @Override
-    public synchronized Object call() throws Exception {
-        System.out.println(" call1 被调用  ");
-        context.writeAndFlush(para);
-
-        //等待channelRead 方法获取到服务器的结果后，唤醒
-        wait();
-        System.out.println(" call2 被调用  ");
-        return  result;
+    public CompletableFuture<Object> send(int serviceId, int methodId, Object[] args, byte serializer, int timeoutMillis) {
+        if (context.executor().isShutdown()) {
+            return rejected(args, null);
+        }
+        long requestId = idGenerator.incrementAndGet();
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        pending.put(requestId, future);
+
+        // 截止时间到了还没有响应，就以超时结束；future 无论以何种方式结束，都取消定时任务并移出 pending 表，
+        // 避免迟到的响应或被调用方取消的 future 一直占着表项
+        if (timeoutMillis > 0) {
+            ScheduledFuture<?> timeoutTask;
+            try {
+                timeoutTask = context.executor().schedule(() -> future.completeExceptionally(
+                        new RpcTimeoutException("调用超时 " + timeoutMillis + "ms, 请求 id: " + requestId)),
+                        timeoutMillis, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                pending.remove(requestId);
+                return rejected(args, e);
+            }
+            future.whenComplete((result, cause) -> {
+                timeoutTask.cancel(false);
+                pending.remove(requestId);
+            });
+        } else {
+            future.whenComplete((result, cause) -> pending.remove(requestId));
+        }
+
+        RpcRequest request = new RpcRequest();
+        request.setRequestId(requestId);
+        request.setServiceId(serviceId);
+        request.setMethodId(methodId);
+        request.setArgs(args);
+        request.setSerializer(serializer);
+        request.setTimeoutMillis(timeoutMillis);
+        ChannelFuture write = context.writeAndFlush(request);
+        // EventLoop 已经关闭时写任务被拒绝，write 在当前线程中就已经失败，而监听器的通知同样需要提交到 EventLoop 上，
+        // 不会再执行，所以已经结束的 write 直接在这里处理
+        if (write.isDone()) {
+            writeCompleted(write, request, future);
+        } else {
+            write.addListener(f -> writeCompleted(write, request, future));
+        }
+        return future;
+    }
+
+    /**
+     * 连接的 EventLoop 已经关闭，请求发不出去，参数在这里释放
+     */
+    private static CompletableFuture<Object> rejected(Object[] args, Throwable cause) {
+        NettyClient.releaseArgs(args);
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        future.completeExceptionally(new RpcException("连接的 EventLoop 已经关闭", cause));
+        return future;
+    }
+
+    private void writeCompleted(ChannelFuture write, RpcRequest request, CompletableFuture<Object> future) {
+        if (write.isSuccess()) {
+            return;
+        }
+        // 在编码之前失败（例如写任务被拒绝）时编码器没有机会接管参数，由这里释放
+        if (!request.isEncoded()) {
+            NettyClient.releaseArgs(request.getArgs());
+        }
+        pending.remove(request.getRequestId());
+        future.completeExceptionally(write.cause());
+    }
+
+    /**
+     * @return 该连接上在途的请求数
+     */
+    int inFlight() {
+        return pending.size();
+    }
+
+    boolean isActive() {
+        ChannelHandlerContext ctx = context;
+        return ctx != null && ctx.channel().isActive();
+    }
+
+    public void close() {
+        ChannelHandlerContext ctx = context;
+        if (ctx != null) {
+            ctx.close();
+        }
     }
 
-    void setPara(String para) {
-        System.out.println(" setPara  ");
-        this.para = para;
+    private void failAll(Throwable cause) {
+        Iterator<CompletableFuture<Object>> iterator = pending.values().iterator();
+        while (iterator.hasNext()) {
+            iterator.next().completeExceptionally(cause);
+            iterator.remove();
+        }
     }
 }
@@ -1,5 +1,9 @@
 package com.netty.dubborpc.netty;
 
+import com.netty.dubborpc.protocol.RpcDecoder;
+import com.netty.dubborpc.protocol.RpcEncoder;
+import com.netty.flush.FlushBatchingHandler;
+import com.netty.flush.FlushStats;
 import io.netty.bootstrap.ServerBootstrap;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelInitializer;
@@ -8,13 +12,29 @@ import io.netty.channel.EventLoopGroup;
 import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.SocketChannel;
 import io.netty.channel.socket.nio.NioServerSocketChannel;
-import io.netty.handler.codec.string.StringDecoder;
-import io.netty.handler.codec.string.StringEncoder;
+
+import java.util.concurrent.TimeUnit;
 
 public class NettyServer {
 
-    public static void startServer(String hostName, int port) {
-        startServer0(hostName,port);
+    public static void startServer(String hostName, int port, ServiceRegistry registry) {
+        int threads = Runtime.getRuntime().availableProcessors() * 2;
+        startServer(hostName, port, registry, BusinessExecutor.bounded(threads, 1024));
+    }
+
+    /**
+     * @param executor 执行业务代码的线程池，见 {@link BusinessExecutor} 的几种实现
+     */
+    public static void startServer(String hostName, int port, ServiceRegistry registry, BusinessExecutor executor) {
+        startServer(hostName, port, registry, executor, null);
+    }
+
+    /**
+     * @param flushStats 不为 null 时开启 flush 合并，并把统计信息记录在其中
+     */
+    public static void startServer(String hostName, int port, ServiceRegistry registry, BusinessExecutor executor,
+                                   FlushStats flushStats) {
+        startServer0(hostName, port, registry, executor, flushStats);
     }
 
     /**
@@ -22,8 +42,12 @@ public class NettyServer {
      *
      * @param hostname
      * @param port
+     * @param registry   已导出的服务
+     * @param executor   业务线程池
+     * @param flushStats flush 合并的统计信息，为 null 时不合并
      */
-    private static void startServer0(String hostname, int port) {
+    private static void startServer0(String hostname, int port, ServiceRegistry registry, BusinessExecutor executor,
+                                     FlushStats flushStats) {
 
         EventLoopGroup bossGroup = new NioEventLoopGroup(1);
         EventLoopGroup workerGroup = new NioEventLoopGroup();
@@ -37,9 +61,13 @@ public class NettyServer {
                           @Override
                           protected void initChannel(SocketChannel ch) throws Exception {
                               ChannelPipeline pipeline = ch.pipeline();
-                              pipeline.addLast(new StringDecoder());
-                              pipeline.addLast(new StringEncoder());
-                              pipeline.addLast(new NettyServerHandler()); //业务处理器
+                              if (flushStats != null) {
+                                  // 放在最前面，才能合并后面所有 handler 发出的 flush
+                                  pipeline.addLast(new FlushBatchingHandler(flushStats));
+                              }
+                              pipeline.addLast(new RpcDecoder());
+                              pipeline.addLast(new RpcEncoder());
+                              pipeline.addLast(new NettyServerHandler(registry, executor)); //业务处理器
                           }
                       }
                     );
@@ -47,6 +75,14 @@ public class NettyServer {
             ChannelFuture channelFuture = serverBootstrap.bind(hostname, port).sync();
 
             System.out.println("服务提供方开始提供服务~~");
+            if (flushStats != null) {
+                workerGroup.scheduleAtFixedRate(() -> System.out.println("flush 合并: " + flushStats),
+                        10, 10, TimeUnit.SECONDS);
+            }
+            if (!(executor instanceof BusinessExecutor.Direct)) {
+                workerGroup.scheduleAtFixedRate(() -> System.out.println("业务线程池: 未完成的任务=" + executor.queueDepth()
+                        + ", 被拒绝的任务=" + executor.rejectedCount()), 10, 10, TimeUnit.SECONDS);
+            }
             channelFuture.channel().closeFuture().sync();
 
         }catch (Exception e) {
@@ -55,6 +91,7 @@ public class NettyServer {
         finally {
             bossGroup.shutdownGracefully();
             workerGroup.shutdownGracefully();
+            executor.shutdown();
         }
     }
 }
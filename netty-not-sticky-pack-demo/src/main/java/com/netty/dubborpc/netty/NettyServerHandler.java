@@ -1,23 +1,111 @@
 package com.netty.dubborpc.netty;
 
-import com.netty.dubborpc.customer.ClientBootstrap;
-import com.netty.dubborpc.provider.HelloServiceImpl;
+import com.netty.dubborpc.protocol.RpcRequest;
+import com.netty.dubborpc.protocol.RpcResponse;
 import io.netty.channel.ChannelHandlerContext;
-import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.util.ReferenceCountUtil;
 
-public class NettyServerHandler extends ChannelInboundHandlerAdapter {
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+public class NettyServerHandler extends SimpleChannelInboundHandler<RpcRequest> {
+
+    private final ServiceRegistry registry;
+    private final BusinessExecutor executor;
+
+    public NettyServerHandler(ServiceRegistry registry, BusinessExecutor executor) {
+        this.registry = registry;
+        this.executor = executor;
+    }
 
     @Override
-    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+    protected void channelRead0(ChannelHandlerContext ctx, RpcRequest request) throws Exception {
 
         // 获取客户端发送的消息，并调用服务
-        System.out.println("msg=" + msg);
+        System.out.println("msg=" + request);
+
+        // 按请求携带的时间预算算出本地的截止时间，请求在业务线程池中排队太久的话就不再执行
+        long deadline = request.getTimeoutMillis() > 0
+                ? System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(request.getTimeoutMillis())
+                : 0;
+
+        // 服务调用交给业务线程池执行，不占用 I/O 线程。线程池已满时直接返回错误，由客户端决定是否重试
+        try {
+            executor.execute(ctx.channel(), () -> invoke(ctx, request, deadline));
+        } catch (RejectedExecutionException e) {
+            releaseArgs(request);
+            RpcResponse response = new RpcResponse();
+            response.setRequestId(request.getRequestId());
+            response.setSerializer(request.getSerializer());
+            response.setError("服务端繁忙: " + e.getMessage());
+            ctx.writeAndFlush(response);
+        }
+    }
 
-        // 客户端在调用服务器的 api 时，需要定义一个协议。比如要求每次发消息是都必须以某个字符串开头 "#你好"
-        if(msg.toString().startsWith(ClientBootstrap.PROTOCOL)) {
+    /**
+     * 客户端在调用服务器的 api 时，按二进制协议传入服务 id、方法 id 和参数，响应时带回请求 id，
+     * 客户端据此匹配同一连接上并发的多个请求
+     *
+     * @param deadline System.nanoTime() 表示的截止时间，0 表示不限制
+     */
+    private void invoke(ChannelHandlerContext ctx, RpcRequest request, long deadline) {
+        RpcResponse response = new RpcResponse();
+        response.setRequestId(request.getRequestId());
+        // 按请求使用的序列化方式返回结果
+        response.setSerializer(request.getSerializer());
+
+        // 客户端已经按超时处理了，执行也没有意义，直接跳过
+        if (deadline != 0 && System.nanoTime() - deadline > 0) {
+            response.setError("请求在服务端排队超过了 " + request.getTimeoutMillis() + "ms 的期限，未执行");
+            releaseArgs(request);
+            ctx.writeAndFlush(response);
+            return;
+        }
+
+        Object result;
+        try {
+            result = registry.invoke(request.getServiceId(), request.getMethodId(), request.getArgs());
+        } catch (Throwable e) {
+            releaseArgs(request);
+            response.setError(e.toString());
+            ctx.writeAndFlush(response);
+            return;
+        }
+
+        // 异步的服务实现返回 CompletionStage，等它完成后再写回结果，不占用业务线程等待
+        if (result instanceof CompletionStage) {
+            ((CompletionStage<?>) result).whenComplete((value, cause) -> {
+                releaseArgs(request);
+                if (cause != null) {
+                    Throwable error = cause instanceof CompletionException && cause.getCause() != null
+                            ? cause.getCause() : cause;
+                    response.setError(error.toString());
+                } else {
+                    response.setResult(value);
+                }
+                ctx.writeAndFlush(response);
+            });
+            return;
+        }
+
+        // 非 I/O 线程调用 writeAndFlush 时，Netty 会把写操作提交到该 channel 的 EventLoop 上执行
+        releaseArgs(request);
+        response.setResult(result);
+        ctx.writeAndFlush(response);
+    }
 
-            String result = new HelloServiceImpl().hello(msg.toString().substring(msg.toString().lastIndexOf("#") + 1));
-            ctx.writeAndFlush(result);
+    /**
+     * 释放引用计数的参数，例如 RawBytesSerializer 解码出的 ByteBuf，服务调用结束后它们不再有用
+     */
+    private static void releaseArgs(RpcRequest request) {
+        Object[] args = request.getArgs();
+        if (args != null) {
+            for (Object arg : args) {
+                ReferenceCountUtil.release(arg);
+            }
         }
     }
 
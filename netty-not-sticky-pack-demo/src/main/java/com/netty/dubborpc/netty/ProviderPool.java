@@ -0,0 +1,175 @@
+package com.netty.dubborpc.netty;
+
+import com.netty.dubborpc.protocol.RpcDecoder;
+import com.netty.dubborpc.protocol.RpcEncoder;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 一个服务提供方地址对应的连接池。
+ * 池中固定有 size 个连接槽位，每个槽位保存一个连接的 future，连接在第一次被用到时才创建。槽位之间互不加锁：
+ * 某个槽位需要连接时用 CAS 放入新的 future，抢到的调用方发起连接，同一槽位上的其它调用方共用这个 future，
+ * 连不上的提供方只会让用到这个槽位的调用等待，不影响其它已有连接的槽位。
+ *
+ * 连接失败，或已经建立的连接断开（channelInactive）时，该提供方被标记为不健康，在退避时间内负载均衡器会跳过它，
+ * 退避时间随连续失败次数增长，重新连接成功后恢复。断开的连接所在的槽位被清空，下一次用到时重新连接。
+ */
+public class ProviderPool {
+
+    private static final int CONNECT_TIMEOUT_MILLIS = 3000;
+    private static final long MAX_BACKOFF_MILLIS = 10_000;
+
+    private final InetSocketAddress address;
+    private final Bootstrap bootstrap;
+    private final AtomicReferenceArray<CompletableFuture<NettyClientHandler>> connections;
+    private final AtomicInteger next = new AtomicInteger();
+
+    private final AtomicInteger failures = new AtomicInteger();
+    private volatile long unhealthyUntil;
+    private volatile boolean closed;
+
+    /**
+     * @param address 服务提供方地址
+     * @param size    连接数，必须大于 0
+     * @param group   所有连接共用的 EventLoopGroup
+     */
+    public ProviderPool(InetSocketAddress address, int size, EventLoopGroup group) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("连接数必须大于 0: " + size);
+        }
+        this.address = address;
+        this.connections = new AtomicReferenceArray<>(size);
+        this.bootstrap = new Bootstrap()
+                .group(group)
+                .channel(NioSocketChannel.class)
+                .remoteAddress(address)
+
+                // 设置为不延迟
+                .option(ChannelOption.TCP_NODELAY, true)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, CONNECT_TIMEOUT_MILLIS);
+    }
+
+    public InetSocketAddress getAddress() {
+        return address;
+    }
+
+    /**
+     * @return 不在连接失败或断开后的退避时间内
+     */
+    public boolean isHealthy() {
+        return System.currentTimeMillis() >= unhealthyUntil;
+    }
+
+    /**
+     * @return 该提供方所有连接上在途的请求数
+     */
+    public int inFlight() {
+        int count = 0;
+        for (int i = 0; i < connections.length(); i++) {
+            CompletableFuture<NettyClientHandler> connection = connections.get(i);
+            if (connection != null && connection.isDone() && !connection.isCompletedExceptionally()) {
+                count += connection.join().inFlight();
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 按轮询取一个槽位上的连接，不阻塞当前线程：连接可用时返回已完成的 future；槽位为空、连接已断开或上次连接失败时
+     * 发起新的连接，返回的 future 在连接建立后完成，连接失败时以 {@link RpcException} 结束
+     */
+    CompletableFuture<NettyClientHandler> acquireAsync() {
+        int index = (next.getAndIncrement() & Integer.MAX_VALUE) % connections.length();
+        while (true) {
+            CompletableFuture<NettyClientHandler> current = connections.get(index);
+            if (current != null && isUsable(current)) {
+                return current;
+            }
+            CompletableFuture<NettyClientHandler> created = new CompletableFuture<>();
+            if (connections.compareAndSet(index, current, created)) {
+                connect(index, created);
+                return created;
+            }
+        }
+    }
+
+    /**
+     * @return 正在连接，或者已经连接成功且连接未断开
+     */
+    private static boolean isUsable(CompletableFuture<NettyClientHandler> connection) {
+        if (!connection.isDone()) {
+            return true;
+        }
+        return !connection.isCompletedExceptionally() && connection.join().isActive();
+    }
+
+    private void connect(int index, CompletableFuture<NettyClientHandler> promise) {
+        NettyClientHandler handler = new NettyClientHandler();
+        bootstrap.clone()
+                .handler(new ChannelInitializer<SocketChannel>() {
+
+                    @Override
+                    protected void initChannel(SocketChannel ch) throws Exception {
+                        ChannelPipeline pipeline = ch.pipeline();
+                        // 同一个连接上会有多个请求同时在途，RpcDecoder 按头部的长度域分包，避免粘包拆包
+                        pipeline.addLast(new RpcDecoder());
+                        pipeline.addLast(new RpcEncoder());
+                        pipeline.addLast(handler);
+                    }
+                })
+                .connect()
+                .addListener((ChannelFutureListener) future -> {
+                    if (!future.isSuccess()) {
+                        markUnhealthy();
+                        promise.completeExceptionally(new RpcException("无法连接到服务提供方 " + address, future.cause()));
+                        return;
+                    }
+
+                    failures.set(0);
+                    unhealthyUntil = 0;
+                    future.channel().closeFuture().addListener(f -> {
+                        connections.compareAndSet(index, promise, null);
+                        if (!closed) {
+                            markUnhealthy();
+                        }
+                    });
+                    promise.complete(handler);
+                });
+    }
+
+    private void markUnhealthy() {
+        int count = failures.incrementAndGet();
+        long backoff = Math.min(MAX_BACKOFF_MILLIS, TimeUnit.SECONDS.toMillis(1) << Math.min(count - 1, 4));
+        unhealthyUntil = System.currentTimeMillis() + backoff;
+    }
+
+    /**
+     * 关闭所有连接，正在建立的连接在建立后立即关闭
+     */
+    void close() {
+        closed = true;
+        for (int i = 0; i < connections.length(); i++) {
+            CompletableFuture<NettyClientHandler> connection = connections.get(i);
+            if (connection != null) {
+                connection.thenAccept(NettyClientHandler::close);
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ProviderPool{" + address + ", inFlight=" + inFlight() + ", healthy=" + isHealthy() + "}";
+    }
+}
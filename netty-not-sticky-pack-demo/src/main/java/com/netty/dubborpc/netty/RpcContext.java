@@ -0,0 +1,41 @@
+package com.netty.dubborpc.netty;
+
+/**
+ * 调用线程的上下文，用于为下一次调用单独指定超时时间：
+ * <pre>
+ * RpcContext.setTimeout(500);
+ * service.hello("...");
+ * </pre>
+ * 设置的值只对当前线程发起的下一次调用生效，使用后自动清除。
+ */
+public final class RpcContext {
+
+    private static final ThreadLocal<Integer> TIMEOUT = new ThreadLocal<>();
+
+    private RpcContext() {
+    }
+
+    /**
+     * @param timeoutMillis 下一次调用的超时时间，单位毫秒
+     */
+    public static void setTimeout(int timeoutMillis) {
+        if (timeoutMillis <= 0) {
+            throw new IllegalArgumentException("超时时间必须大于 0: " + timeoutMillis);
+        }
+        TIMEOUT.set(timeoutMillis);
+    }
+
+    /**
+     * 取出并清除当前线程为下一次调用设置的超时时间
+     *
+     * @return 未设置时返回 0
+     */
+    static int takeTimeout() {
+        Integer timeout = TIMEOUT.get();
+        if (timeout == null) {
+            return 0;
+        }
+        TIMEOUT.remove();
+        return timeout;
+    }
+}
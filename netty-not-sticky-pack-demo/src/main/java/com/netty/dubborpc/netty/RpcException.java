@@ -0,0 +1,17 @@
+package com.netty.dubborpc.netty;
+
+/**
+ * 远程调用失败：服务端返回了错误、连接断开或调用超时
+ */
+public class RpcException extends RuntimeException {
+
+    private static final long serialVersionUID = 2402467618271349785L;
+
+    public RpcException(String message) {
+        super(message);
+    }
+
+    public RpcException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
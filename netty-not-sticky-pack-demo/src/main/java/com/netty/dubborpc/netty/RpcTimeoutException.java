@@ -0,0 +1,13 @@
+package com.netty.dubborpc.netty;
+
+/**
+ * 在截止时间之前没有收到响应
+ */
+public class RpcTimeoutException extends RpcException {
+
+    private static final long serialVersionUID = -6209537186722374811L;
+
+    public RpcTimeoutException(String message) {
+        super(message);
+    }
+}
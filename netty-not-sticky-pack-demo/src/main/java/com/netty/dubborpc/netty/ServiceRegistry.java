@@ -0,0 +1,80 @@
+package com.netty.dubborpc.netty;
+
+import com.netty.dubborpc.protocol.ServiceDescriptor;
+import io.netty.util.collection.IntObjectHashMap;
+import io.netty.util.collection.IntObjectMap;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+
+/**
+ * 服务提供方的服务注册表。
+ * 注册时就为接口的每个方法生成一个绑定了实现对象的 MethodHandle，并统一适配为 (Object[]) -> Object 的形式，
+ * 按 methodId 存放在数组中。调用时只需按 serviceId 查表、按 methodId 取数组元素后 invokeExact，不再有反射查找，
+ * 也不会每次调用都创建新的服务实现对象。
+ *
+ * 注册需要在 NettyServer 启动之前完成，启动后注册表只读，可以被多个 I/O 线程并发访问。
+ */
+public class ServiceRegistry {
+
+    private static final MethodType INVOKER_TYPE = MethodType.methodType(Object.class, Object[].class);
+
+    /**
+     * serviceId -> 按 methodId 排列的调用器
+     */
+    private final IntObjectMap<MethodHandle[]> services = new IntObjectHashMap<>();
+
+    /**
+     * 导出一个服务
+     *
+     * @param serviceClass 公共接口
+     * @param impl         服务实现
+     * @param <T>
+     * @return 注册表本身，便于链式调用
+     */
+    public <T> ServiceRegistry register(Class<T> serviceClass, T impl) {
+        ServiceDescriptor descriptor = ServiceDescriptor.of(serviceClass);
+        if (services.containsKey(descriptor.getServiceId())) {
+            throw new IllegalStateException("服务 " + serviceClass.getName() + " 已经注册，或与其他服务的 id 冲突");
+        }
+
+        Method[] methods = descriptor.getMethods();
+        MethodHandle[] invokers = new MethodHandle[methods.length];
+        MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+        for (int i = 0; i < methods.length; i++) {
+            try {
+                invokers[i] = lookup.unreflect(methods[i])
+                        .bindTo(impl)
+                        .asSpreader(Object[].class, methods[i].getParameterCount())
+                        .asType(INVOKER_TYPE);
+            } catch (IllegalAccessException e) {
+                throw new IllegalArgumentException("无法访问方法 " + methods[i], e);
+            }
+        }
+
+        services.put(descriptor.getServiceId(), invokers);
+        return this;
+    }
+
+    /**
+     * 调用已注册的服务方法
+     *
+     * @param serviceId 服务 id
+     * @param methodId  方法 id
+     * @param args      参数
+     * @return 方法的返回值，void 方法返回 null
+     * @throws Throwable 服务实现抛出的异常
+     */
+    public Object invoke(int serviceId, int methodId, Object[] args) throws Throwable {
+        MethodHandle[] invokers = services.get(serviceId);
+        if (invokers == null) {
+            throw new IllegalArgumentException("未知的服务: " + serviceId);
+        }
+        if (methodId < 0 || methodId >= invokers.length) {
+            throw new IllegalArgumentException("未知的方法: " + serviceId + "#" + methodId);
+        }
+        return (Object) invokers[methodId].invokeExact(args);
+    }
+}
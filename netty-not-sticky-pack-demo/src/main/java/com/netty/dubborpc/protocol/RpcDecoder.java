@@ -0,0 +1,114 @@
+package com.netty.dubborpc.protocol;
+
+import com.netty.dubborpc.serialize.Serializer;
+import com.netty.dubborpc.serialize.Serializers;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.CorruptedFrameException;
+import io.netty.handler.codec.LengthFieldBasedFrameDecoder;
+import io.netty.util.ReferenceCountUtil;
+
+/**
+ * 按头部中的长度域分包，再从完整的帧中直接解析出 RpcRequest / RpcResponse。
+ * 参数和返回值交给 flags 中指定的 {@link Serializer}，从帧所在 ByteBuf 的切片上直接反序列化。
+ */
+public class RpcDecoder extends LengthFieldBasedFrameDecoder {
+
+    public RpcDecoder() {
+        this(RpcProtocol.MAX_FRAME_LENGTH);
+    }
+
+    public RpcDecoder(int maxFrameLength) {
+        super(maxFrameLength, RpcProtocol.LENGTH_FIELD_OFFSET, RpcProtocol.LENGTH_FIELD_LENGTH, 0, 0);
+    }
+
+    @Override
+    protected Object decode(ChannelHandlerContext ctx, ByteBuf in) throws Exception {
+
+        // 先校验魔数，非法连接不必等到整帧到达
+        if (in.readableBytes() >= 3) {
+            int readerIndex = in.readerIndex();
+            if (in.getShort(readerIndex) != RpcProtocol.MAGIC) {
+                throw new CorruptedFrameException("非法的魔数: " + in.getShort(readerIndex));
+            }
+            if (in.getByte(readerIndex + 2) != RpcProtocol.VERSION) {
+                throw new CorruptedFrameException("不支持的协议版本: " + in.getByte(readerIndex + 2));
+            }
+        }
+
+        ByteBuf frame = (ByteBuf) super.decode(ctx, in);
+        if (frame == null) {
+            return null;
+        }
+
+        try {
+            // 跳过 magic 和 version
+            frame.skipBytes(3);
+            byte flags = frame.readByte();
+            long requestId = frame.readLong();
+            int serviceId = frame.readInt();
+            int methodId = frame.readInt();
+            int timeoutMillis = frame.readInt();
+            frame.skipBytes(RpcProtocol.LENGTH_FIELD_LENGTH);
+
+            int serializerId = (flags & 0xFF) >>> RpcProtocol.SERIALIZER_SHIFT;
+            Serializer serializer = Serializers.get(serializerId);
+            if (serializer == null) {
+                throw new CorruptedFrameException("未注册的序列化方式: " + serializerId);
+            }
+
+            if ((flags & RpcProtocol.FLAG_RESPONSE) != 0) {
+                RpcResponse response = new RpcResponse();
+                response.setRequestId(requestId);
+                response.setSerializer(serializer.getId());
+                if ((flags & RpcProtocol.FLAG_ERROR) != 0) {
+                    response.setError((String) readValue(frame, Serializers.STRING));
+                } else {
+                    response.setResult(readValue(frame, serializer));
+                }
+                return response;
+            }
+
+            RpcRequest request = new RpcRequest();
+            request.setRequestId(requestId);
+            request.setServiceId(serviceId);
+            request.setMethodId(methodId);
+            request.setTimeoutMillis(timeoutMillis);
+            request.setSerializer(serializer.getId());
+            Object[] args = new Object[frame.readUnsignedShort()];
+            try {
+                for (int i = 0; i < args.length; i++) {
+                    args[i] = readValue(frame, serializer);
+                }
+            } catch (Exception e) {
+                // 已经解码出的参数可能持有帧的引用，例如 RawBytesSerializer 返回的切片
+                for (Object arg : args) {
+                    ReferenceCountUtil.release(arg);
+                }
+                throw e;
+            }
+            request.setArgs(args);
+            return request;
+        } finally {
+            frame.release();
+        }
+    }
+
+    /**
+     * 只返回原始帧的切片，而不是像父类那样拷贝一份
+     */
+    @Override
+    protected ByteBuf extractFrame(ChannelHandlerContext ctx, ByteBuf buffer, int index, int length) {
+        return buffer.retainedSlice(index, length);
+    }
+
+    private static Object readValue(ByteBuf frame, Serializer serializer) throws Exception {
+        int length = frame.readInt();
+        if (length < 0) {
+            return null;
+        }
+        Object value = serializer.deserialize(frame.slice(frame.readerIndex(), length));
+        frame.skipBytes(length);
+        return value;
+    }
+}
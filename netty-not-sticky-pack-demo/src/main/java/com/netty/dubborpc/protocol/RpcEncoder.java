@@ -0,0 +1,185 @@
+package com.netty.dubborpc.protocol;
+
+import com.netty.dubborpc.serialize.Serializer;
+import com.netty.dubborpc.serialize.Serializers;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.EncoderException;
+import io.netty.handler.codec.MessageToMessageEncoder;
+import io.netty.util.ReferenceCountUtil;
+
+import java.util.List;
+
+/**
+ * 把 RpcRequest / RpcResponse 编码为 {@link RpcProtocol} 描述的二进制帧。
+ * 参数和返回值由消息指定的 {@link Serializer} 直接写入出站的 ByteBuf，先占位长度域，写完后再回填。
+ * {@link Serializer#asBuffer} 返回了 ByteBuf 的值不拷贝，与前后编码出的字节一起组成 CompositeByteBuf 发送。
+ * 编码失败时，已经拼接的值随帧一起释放，还没写到的参数或返回值也在这里释放，它们已经交给了框架，调用方不会再释放。
+ */
+@ChannelHandler.Sharable
+public class RpcEncoder extends MessageToMessageEncoder<Object> {
+
+    @Override
+    public boolean acceptOutboundMessage(Object msg) {
+        return msg instanceof RpcRequest || msg instanceof RpcResponse;
+    }
+
+    @Override
+    protected void encode(ChannelHandlerContext ctx, Object msg, List<Object> out) throws Exception {
+        if (msg instanceof RpcRequest) {
+            ((RpcRequest) msg).setEncoded(true);
+        }
+        FrameWriter frame = new FrameWriter(ctx.alloc().ioBuffer());
+        try {
+            encode(msg, frame);
+            out.add(frame.finish());
+        } catch (Throwable e) {
+            frame.release();
+            releaseUnwritten(msg, frame.valuesWritten);
+            throw e;
+        }
+    }
+
+    /**
+     * 释放第 written 个及之后的参数，或者还没写出的返回值
+     */
+    private static void releaseUnwritten(Object msg, int written) {
+        if (msg instanceof RpcRequest) {
+            Object[] args = ((RpcRequest) msg).getArgs();
+            for (int i = written; args != null && i < args.length; i++) {
+                ReferenceCountUtil.release(args[i]);
+            }
+        } else if (written == 0) {
+            ReferenceCountUtil.release(((RpcResponse) msg).getResult());
+        }
+    }
+
+    private static void encode(Object msg, FrameWriter frame) throws Exception {
+        ByteBuf out = frame.out;
+        int headerIndex = out.writerIndex();
+        if (msg instanceof RpcRequest) {
+            RpcRequest request = (RpcRequest) msg;
+            Serializer serializer = serializer(request.getSerializer());
+            writeHeader(out, flags((byte) 0, serializer), request.getRequestId(), request.getServiceId(),
+                    request.getMethodId(), request.getTimeoutMillis());
+
+            Object[] args = request.getArgs();
+            int count = args == null ? 0 : args.length;
+            out.writeShort(count);
+            for (int i = 0; i < count; i++) {
+                writeValue(frame, args[i], serializer);
+            }
+        } else {
+            RpcResponse response = (RpcResponse) msg;
+            Serializer serializer = serializer(response.getSerializer());
+            if (response.getError() != null) {
+                byte flags = flags((byte) (RpcProtocol.FLAG_RESPONSE | RpcProtocol.FLAG_ERROR), serializer);
+                writeHeader(out, flags, response.getRequestId(), 0, 0, 0);
+                writeValue(frame, response.getError(), Serializers.STRING);
+            } else {
+                writeHeader(out, flags(RpcProtocol.FLAG_RESPONSE, serializer), response.getRequestId(), 0, 0, 0);
+                writeValue(frame, response.getResult(), serializer);
+            }
+        }
+
+        // 回填消息体长度，头部所在的内存与已经拼接进 CompositeByteBuf 的切片共享，回填同样有效
+        int bodyLength = out.writerIndex() - headerIndex - RpcProtocol.HEADER_LENGTH + frame.splicedBytes;
+        out.setInt(headerIndex + RpcProtocol.LENGTH_FIELD_OFFSET, bodyLength);
+    }
+
+    private static Serializer serializer(byte id) {
+        Serializer serializer = Serializers.get(id);
+        if (serializer == null) {
+            throw new EncoderException("未注册的序列化方式: " + id);
+        }
+        return serializer;
+    }
+
+    private static byte flags(byte flags, Serializer serializer) {
+        return (byte) (flags | serializer.getId() << RpcProtocol.SERIALIZER_SHIFT);
+    }
+
+    private static void writeHeader(ByteBuf out, byte flags, long requestId, int serviceId, int methodId,
+                                    int timeoutMillis) {
+        out.writeShort(RpcProtocol.MAGIC);
+        out.writeByte(RpcProtocol.VERSION);
+        out.writeByte(flags);
+        out.writeLong(requestId);
+        out.writeInt(serviceId);
+        out.writeInt(methodId);
+        out.writeInt(timeoutMillis);
+        // 消息体长度占位
+        out.writeInt(0);
+    }
+
+    private static void writeValue(FrameWriter frame, Object value, Serializer serializer) throws Exception {
+        ByteBuf out = frame.out;
+        if (value == null) {
+            out.writeInt(-1);
+        } else {
+            ByteBuf buffer = serializer.asBuffer(value);
+            if (buffer != null) {
+                out.writeInt(buffer.readableBytes());
+                frame.splice(buffer);
+            } else {
+                int lengthIndex = out.writerIndex();
+                out.writeInt(0);
+                serializer.serialize(value, out);
+                out.setInt(lengthIndex, out.writerIndex() - lengthIndex - 4);
+            }
+        }
+        frame.valuesWritten++;
+    }
+
+    /**
+     * 正在编码的一帧：没有需要拼接的值时就是 out 本身；拼接时把 out 中还没交出的字节切片和值的 ByteBuf 依次加入 composite，
+     * out 继续用来写后面的字节
+     */
+    private static final class FrameWriter {
+
+        private final ByteBuf out;
+        private CompositeByteBuf composite;
+        private int splicedBytes;
+
+        /**
+         * 已经写完的值的个数，之后的值编码失败时还归编码器释放
+         */
+        private int valuesWritten;
+
+        FrameWriter(ByteBuf out) {
+            this.out = out;
+        }
+
+        /**
+         * @param buffer 由 composite 接管，之后随 composite 一起释放
+         */
+        void splice(ByteBuf buffer) {
+            if (composite == null) {
+                composite = out.alloc().compositeBuffer();
+            }
+            composite.addComponent(true, out.readRetainedSlice(out.readableBytes()));
+            composite.addComponent(true, buffer);
+            splicedBytes += buffer.readableBytes();
+        }
+
+        ByteBuf finish() {
+            if (composite == null) {
+                return out;
+            }
+            if (out.isReadable()) {
+                composite.addComponent(true, out.readRetainedSlice(out.readableBytes()));
+            }
+            out.release();
+            return composite;
+        }
+
+        void release() {
+            out.release();
+            if (composite != null) {
+                composite.release();
+            }
+        }
+    }
+}
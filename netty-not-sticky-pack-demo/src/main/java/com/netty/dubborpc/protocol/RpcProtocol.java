@@ -0,0 +1,66 @@
+package com.netty.dubborpc.protocol;
+
+/**
+ * dubborpc 的二进制协议格式，每一帧由固定长度的头部和变长的消息体组成：
+ *
+ * <pre>
+ * +-------+---------+-------+------------+------------+-----------+---------+-------------+-------------+
+ * | magic | version | flags | request id | service id | method id | timeout | body length |    body     |
+ * |  2B   |   1B    |  1B   |     8B     |     4B     |    4B     |   4B    |     4B      | body length |
+ * +-------+---------+-------+------------+------------+-----------+---------+-------------+-------------+
+ * </pre>
+ *
+ * timeout 是请求剩余的时间预算（毫秒），0 表示不限制。传输的是相对时间而不是绝对时间点，避免依赖两端时钟一致，
+ * 服务提供方收到请求时据此算出自己的截止时间，过期的请求不再执行。
+ * 消息体长度位于偏移量 24 处，因此可以直接交给 LengthFieldBasedFrameDecoder 分包，不需要再扫描字符串查找分隔符。
+ * flags 的低 4 位是消息标志，高 4 位是消息体使用的序列化方式的 id，见 {@link com.netty.dubborpc.serialize.Serializers}。
+ *
+ * 请求的消息体：short 参数个数 + 每个参数的 (int 长度 + 序列化后的字节)，长度为 -1 表示 null；
+ * 响应的消息体：int 长度 + 序列化后的返回值，出错时为 UTF-8 编码的异常信息。
+ */
+public final class RpcProtocol {
+
+    /**
+     * 魔数，用于快速识别非法连接
+     */
+    public static final short MAGIC = (short) 0xDAB0;
+
+    /**
+     * 协议版本
+     */
+    public static final byte VERSION = 2;
+
+    /**
+     * 头部长度字节数
+     */
+    public static final int HEADER_LENGTH = 28;
+
+    /**
+     * 长度域的偏移量和长度
+     */
+    public static final int LENGTH_FIELD_OFFSET = 24;
+    public static final int LENGTH_FIELD_LENGTH = 4;
+
+    /**
+     * 一帧允许的最大长度
+     */
+    public static final int MAX_FRAME_LENGTH = 1024 * 1024;
+
+    /**
+     * flags：该帧是响应
+     */
+    public static final byte FLAG_RESPONSE = 0x01;
+
+    /**
+     * flags：该响应是异常信息
+     */
+    public static final byte FLAG_ERROR = 0x02;
+
+    /**
+     * 序列化方式的 id 在 flags 中的偏移
+     */
+    public static final int SERIALIZER_SHIFT = 4;
+
+    private RpcProtocol() {
+    }
+}
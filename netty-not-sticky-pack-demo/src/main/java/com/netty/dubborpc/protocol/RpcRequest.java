@@ -0,0 +1,30 @@
+package com.netty.dubborpc.protocol;
+
+import lombok.Data;
+
+/**
+ * 请求数据，serviceId 和 methodId 由 {@link ServiceDescriptor} 根据公共接口计算得出
+ */
+@Data
+public class RpcRequest {
+    private long requestId;
+    private int serviceId;
+    private int methodId;
+    private Object[] args;
+
+    /**
+     * 调用剩余的时间预算，单位毫秒，0 表示不限制
+     */
+    private int timeoutMillis;
+
+    /**
+     * 消息体使用的序列化方式
+     */
+    private byte serializer;
+
+    /**
+     * 编码器开始编码时置为 true，之后 args 中的引用计数对象由编码器负责释放。
+     * 写出失败时据此判断失败发生在编码之前还是之后，只在编码之前失败时由发送方释放参数，不会释放两次
+     */
+    private transient boolean encoded;
+}
@@ -0,0 +1,18 @@
+package com.netty.dubborpc.protocol;
+
+import lombok.Data;
+
+/**
+ * 响应数据，error 不为空时表示服务端调用失败
+ */
+@Data
+public class RpcResponse {
+    private long requestId;
+    private String error;
+    private Object result;
+
+    /**
+     * 消息体使用的序列化方式
+     */
+    private byte serializer;
+}
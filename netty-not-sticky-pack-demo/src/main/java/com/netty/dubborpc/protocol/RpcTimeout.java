@@ -0,0 +1,21 @@
+package com.netty.dubborpc.protocol;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 标注在公共接口的方法上，指定该方法调用的超时时间，优先于客户端的默认超时时间
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface RpcTimeout {
+
+    /**
+     * @return 超时时间，单位毫秒
+     */
+    int value();
+}
@@ -0,0 +1,96 @@
+package com.netty.dubborpc.protocol;
+
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 公共接口的描述信息。服务提供方和服务消费方都持有同一个接口，因此可以各自按相同的规则计算出整数 id，
+ * 协议中只传输 id，不再传输类名和方法名：
+ * serviceId 为接口全限定名的 hashCode；methodId 为方法按 "方法名 + 方法描述符" 排序后的下标。
+ */
+public final class ServiceDescriptor {
+
+    private static final Map<Class<?>, ServiceDescriptor> CACHE = new ConcurrentHashMap<>();
+
+    private final Class<?> serviceClass;
+    private final int serviceId;
+    private final Method[] methods;
+    private final Map<Method, Integer> methodIds;
+    private final int[] timeouts;
+    private final boolean[] async;
+
+    private ServiceDescriptor(Class<?> serviceClass) {
+        if (!serviceClass.isInterface()) {
+            throw new IllegalArgumentException(serviceClass.getName() + " 不是接口");
+        }
+        this.serviceClass = serviceClass;
+        this.serviceId = serviceClass.getName().hashCode();
+        this.methods = serviceClass.getMethods();
+        Arrays.sort(this.methods, Comparator.comparing(ServiceDescriptor::signature));
+
+        this.methodIds = new HashMap<>(methods.length * 2);
+        this.timeouts = new int[methods.length];
+        this.async = new boolean[methods.length];
+        for (int i = 0; i < methods.length; i++) {
+            Class<?> returnType = methods[i].getReturnType();
+            async[i] = returnType == CompletableFuture.class || returnType == CompletionStage.class;
+            methodIds.put(methods[i], i);
+            RpcTimeout timeout = methods[i].getAnnotation(RpcTimeout.class);
+            timeouts[i] = timeout == null ? 0 : timeout.value();
+        }
+    }
+
+    public static ServiceDescriptor of(Class<?> serviceClass) {
+        return CACHE.computeIfAbsent(serviceClass, ServiceDescriptor::new);
+    }
+
+    public Class<?> getServiceClass() {
+        return serviceClass;
+    }
+
+    public int getServiceId() {
+        return serviceId;
+    }
+
+    public Method[] getMethods() {
+        return methods.clone();
+    }
+
+    public Method getMethod(int methodId) {
+        return methodId >= 0 && methodId < methods.length ? methods[methodId] : null;
+    }
+
+    /**
+     * @return 方法对应的 id，不属于该接口时返回 -1
+     */
+    public int getMethodId(Method method) {
+        Integer id = methodIds.get(method);
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * @return 方法上 {@link RpcTimeout} 指定的超时时间，没有标注时返回 0
+     */
+    public int getTimeoutMillis(int methodId) {
+        return timeouts[methodId];
+    }
+
+    /**
+     * @return 方法的返回值是 CompletableFuture 或 CompletionStage，即异步方法
+     */
+    public boolean isAsync(int methodId) {
+        return async[methodId];
+    }
+
+    private static String signature(Method method) {
+        return method.getName() + MethodType.methodType(method.getReturnType(), method.getParameterTypes())
+                .toMethodDescriptorString();
+    }
+}
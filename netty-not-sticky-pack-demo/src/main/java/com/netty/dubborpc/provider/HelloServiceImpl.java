@@ -2,9 +2,15 @@ package com.netty.dubborpc.provider;
 
 import com.netty.dubborpc.publicinterface.HelloService;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
 public class HelloServiceImpl implements HelloService{
 
-    private static int count = 0;
+    /**
+     * 注册表中只有一个实例，会被多个 I/O 线程同时调用
+     */
+    private static final AtomicInteger count = new AtomicInteger();
 
     /**
      * 当有消费方调用该方法时，就返回一个结果
@@ -18,9 +24,14 @@ public class HelloServiceImpl implements HelloService{
 
         // 根据 mes 返回不同的结果
         if(mes != null) {
-            return "你好客户端, 我已经收到你的消息 [" + mes + "] 第" + (++count) + " 次";
+            return "你好客户端, 我已经收到你的消息 [" + mes + "] 第" + count.incrementAndGet() + " 次";
         } else {
             return "你好客户端, 我已经收到你的消息 ";
         }
     }
+
+    @Override
+    public CompletableFuture<String> helloAsync(String mes) {
+        return CompletableFuture.completedFuture(hello(mes));
+    }
 }
@@ -1,6 +1,8 @@
 package com.netty.dubborpc.provider;
 
 import com.netty.dubborpc.netty.NettyServer;
+import com.netty.dubborpc.netty.ServiceRegistry;
+import com.netty.dubborpc.publicinterface.HelloService;
 
 /**
  * ServerBootstrap 会启动一个服务提供者，即 NettyServer
@@ -9,7 +11,10 @@ public class ServerBootstrap {
 
     public static void main(String[] args) {
 
-        //代码代填..
-        NettyServer.startServer("127.0.0.1", 7000);
+        // 导出服务，服务实现只创建一次
+        ServiceRegistry registry = new ServiceRegistry()
+                .register(HelloService.class, new HelloServiceImpl());
+
+        NettyServer.startServer("127.0.0.1", 7000, registry);
     }
 }
@@ -1,9 +1,16 @@
 package com.netty.dubborpc.publicinterface;
 
+import java.util.concurrent.CompletableFuture;
+
 /**
  * 这个是接口，是服务提供方和 服务消费方都需要
  */
 public interface HelloService {
 
     String hello(String mes);
+
+    /**
+     * 异步版本，消费方调用后立即返回，不阻塞调用线程
+     */
+    CompletableFuture<String> helloAsync(String mes);
 }
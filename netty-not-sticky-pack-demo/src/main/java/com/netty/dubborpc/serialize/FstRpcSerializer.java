@@ -0,0 +1,29 @@
+package com.netty.dubborpc.serialize;
+
+import com.netty.unpack.codec.FstSerializer;
+import io.netty.buffer.ByteBuf;
+
+import java.io.IOException;
+
+/**
+ * 使用 unpack 中的 {@link FstSerializer}，可以传输任意实现了 Serializable 的对象
+ */
+public class FstRpcSerializer implements Serializer {
+
+    public static final byte ID = 1;
+
+    @Override
+    public byte getId() {
+        return ID;
+    }
+
+    @Override
+    public void serialize(Object value, ByteBuf out) throws IOException {
+        FstSerializer.serialize(value, out);
+    }
+
+    @Override
+    public Object deserialize(ByteBuf in) throws IOException {
+        return FstSerializer.deserialize(in, in.readableBytes(), Object.class);
+    }
+}
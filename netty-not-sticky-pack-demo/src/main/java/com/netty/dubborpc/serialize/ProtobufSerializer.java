@@ -0,0 +1,63 @@
+package com.netty.dubborpc.serialize;
+
+import com.google.protobuf.MessageLite;
+import com.google.protobuf.Parser;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufOutputStream;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.util.CharsetUtil;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 传输 protobuf 生成的消息对象。格式为：short 类名长度 + 类名 + 消息本身的编码。
+ * 类名对应的 Parser 只在第一次遇到时通过 getDefaultInstance() 取得，之后从缓存中获取。
+ */
+public class ProtobufSerializer implements Serializer {
+
+    public static final byte ID = 2;
+
+    private static final Map<String, Parser<?>> PARSERS = new ConcurrentHashMap<>();
+
+    @Override
+    public byte getId() {
+        return ID;
+    }
+
+    @Override
+    public void serialize(Object value, ByteBuf out) throws IOException {
+        if (!(value instanceof MessageLite)) {
+            throw new IllegalArgumentException(value.getClass().getName() + " 不是 protobuf 消息");
+        }
+
+        int lengthIndex = out.writerIndex();
+        out.writeShort(0);
+        int length = ByteBufUtil.writeUtf8(out, value.getClass().getName());
+        out.setShort(lengthIndex, length);
+
+        ((MessageLite) value).writeTo(new ByteBufOutputStream(out));
+    }
+
+    @Override
+    public Object deserialize(ByteBuf in) throws IOException {
+        int length = in.readUnsignedShort();
+        String className = in.toString(in.readerIndex(), length, CharsetUtil.UTF_8);
+        in.skipBytes(length);
+
+        return parser(className).parseFrom(in.nioBuffer());
+    }
+
+    private static Parser<?> parser(String className) {
+        return PARSERS.computeIfAbsent(className, name -> {
+            try {
+                Class<?> messageClass = Class.forName(name, true, Thread.currentThread().getContextClassLoader());
+                MessageLite prototype = (MessageLite) messageClass.getMethod("getDefaultInstance").invoke(null);
+                return prototype.getParserForType();
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalArgumentException("无法加载 protobuf 消息类型 " + name, e);
+            }
+        });
+    }
+}
@@ -0,0 +1,54 @@
+package com.netty.dubborpc.serialize;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+
+/**
+ * 不做任何序列化，参数和返回值本身就是字节，发送和接收都不拷贝，适合已经自行编码好的数据。
+ *
+ * 发送时接受 byte[] 和 ByteBuf：byte[] 用 Unpooled.wrappedBuffer 包装，ByteBuf 直接作为帧的一部分发送，
+ * 见 {@link #asBuffer}。传入的 ByteBuf 交给框架，发送完由框架释放，调用方之后不要再使用或释放它。
+ *
+ * 接收到的值是帧所在 ByteBuf 的 retainedSlice，类型是 ByteBuf，必须由接收方释放：
+ * 服务提供方收到的参数由 NettyServerHandler 在服务调用结束后释放（服务返回 CompletionStage 时在它完成后释放），
+ * 需要保留更久或者把它作为返回值时先 retain()；消费方收到的返回值由调用方用完后 release()。
+ */
+public class RawBytesSerializer implements Serializer {
+
+    public static final byte ID = 3;
+
+    @Override
+    public byte getId() {
+        return ID;
+    }
+
+    @Override
+    public ByteBuf asBuffer(Object value) {
+        if (value instanceof byte[]) {
+            return Unpooled.wrappedBuffer((byte[]) value);
+        } else if (value instanceof ByteBuf) {
+            return (ByteBuf) value;
+        }
+        throw new IllegalArgumentException(value.getClass().getName() + " 不是 byte[] 或 ByteBuf");
+    }
+
+    /**
+     * 编码器会优先使用 {@link #asBuffer}，只有直接调用时才会走到这里，把数据拷贝进 out，ByteBuf 仍由调用方释放
+     */
+    @Override
+    public void serialize(Object value, ByteBuf out) {
+        if (value instanceof byte[]) {
+            out.writeBytes((byte[]) value);
+        } else if (value instanceof ByteBuf) {
+            ByteBuf buf = (ByteBuf) value;
+            out.writeBytes(buf, buf.readerIndex(), buf.readableBytes());
+        } else {
+            throw new IllegalArgumentException(value.getClass().getName() + " 不是 byte[] 或 ByteBuf");
+        }
+    }
+
+    @Override
+    public Object deserialize(ByteBuf in) {
+        return in.retainedSlice();
+    }
+}
@@ -0,0 +1,37 @@
+package com.netty.dubborpc.serialize;
+
+import io.netty.buffer.ByteBuf;
+
+import java.io.IOException;
+
+/**
+ * RPC 消息体中参数和返回值的序列化方式。
+ * 每种实现有一个唯一的 id（0 ~ 15），写在帧头 flags 的高 4 位中，接收方据此选择同一种方式反序列化，
+ * 服务提供方也用请求所使用的方式编码响应。
+ */
+public interface Serializer {
+
+    /**
+     * @return 序列化方式的 id，取值 0 ~ 15
+     */
+    byte getId();
+
+    /**
+     * 把一个非 null 的值直接写入出站的 ByteBuf
+     */
+    void serialize(Object value, ByteBuf out) throws IOException;
+
+    /**
+     * 值本身就是可以直接发送的字节时，返回包装它的 ByteBuf，编码器把它作为帧的一部分发送，不再拷贝到出站的 ByteBuf 中；
+     * 返回的 ByteBuf 由编码器负责释放。其它情况返回 null，由 {@link #serialize} 写入
+     */
+    default ByteBuf asBuffer(Object value) {
+        return null;
+    }
+
+    /**
+     * @param in 恰好包含一个值的 ByteBuf 切片，读完即可，不需要释放。需要不拷贝地保留其中的数据时可以返回
+     *           in.retainedSlice()，由拿到返回值的一方释放
+     */
+    Object deserialize(ByteBuf in) throws IOException;
+}
@@ -0,0 +1,50 @@
+package com.netty.dubborpc.serialize;
+
+/**
+ * 按 id 查找序列化方式，id 直接作为数组下标
+ */
+public final class Serializers {
+
+    public static final Serializer STRING = new StringSerializer();
+    public static final Serializer FST = new FstRpcSerializer();
+    public static final Serializer PROTOBUF = new ProtobufSerializer();
+    public static final Serializer RAW_BYTES = new RawBytesSerializer();
+
+    /**
+     * 未指定时使用的序列化方式
+     */
+    public static final Serializer DEFAULT = FST;
+
+    private static final Serializer[] SERIALIZERS = new Serializer[16];
+
+    static {
+        register(STRING);
+        register(FST);
+        register(PROTOBUF);
+        register(RAW_BYTES);
+    }
+
+    private Serializers() {
+    }
+
+    /**
+     * 注册自定义的序列化方式，需要在客户端和服务端启动前完成
+     */
+    public static synchronized void register(Serializer serializer) {
+        byte id = serializer.getId();
+        if (id < 0 || id >= SERIALIZERS.length) {
+            throw new IllegalArgumentException("序列化方式的 id 必须在 0 ~ 15 之间: " + id);
+        }
+        if (SERIALIZERS[id] != null && SERIALIZERS[id] != serializer) {
+            throw new IllegalStateException("序列化方式的 id 重复: " + id);
+        }
+        SERIALIZERS[id] = serializer;
+    }
+
+    /**
+     * @return 对应的序列化方式，未注册时返回 null
+     */
+    public static Serializer get(int id) {
+        return id >= 0 && id < SERIALIZERS.length ? SERIALIZERS[id] : null;
+    }
+}
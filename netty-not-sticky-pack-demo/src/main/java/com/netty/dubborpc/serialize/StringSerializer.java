@@ -0,0 +1,28 @@
+package com.netty.dubborpc.serialize;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.util.CharsetUtil;
+
+/**
+ * 按 UTF-8 字符串传输，非字符串的值会先调用 toString()，即最初的协议只传字符串的行为
+ */
+public class StringSerializer implements Serializer {
+
+    public static final byte ID = 0;
+
+    @Override
+    public byte getId() {
+        return ID;
+    }
+
+    @Override
+    public void serialize(Object value, ByteBuf out) {
+        ByteBufUtil.writeUtf8(out, value.toString());
+    }
+
+    @Override
+    public Object deserialize(ByteBuf in) {
+        return in.toString(CharsetUtil.UTF_8);
+    }
+}
@@ -0,0 +1,178 @@
+package com.netty.flush;
+
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.ChannelPromise;
+import io.netty.handler.flush.FlushConsolidationHandler;
+
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 合并 flush，在 Netty 自带的 {@link FlushConsolidationHandler} 上增加了两点：
+ * 1、统计信息：实际写出的 write 和 flush 次数，见 {@link FlushStats}；
+ * 2、不在读循环中的 flush（例如业务线程池写回的响应）可以等待 maxDelayMicros 的时间窗口，把窗口内的响应合并成一次 flush。
+ *    FlushConsolidationHandler 只会把它推迟到 EventLoop 的下一个任务。
+ *
+ * 读循环（channelRead ... channelReadComplete）中的 flush 推迟到 channelReadComplete 时统一执行一次，
+ * 积累了 explicitFlushAfterFlushes 次 flush 时立即执行，这些都由 FlushConsolidationHandler 完成。
+ *
+ * 需要放在 pipeline 中所有会调用 flush 的 handler 之前（靠近 head 的一侧）。
+ */
+public class FlushBatchingHandler extends FlushConsolidationHandler {
+
+    public static final int DEFAULT_EXPLICIT_FLUSH_AFTER_FLUSHES = 256;
+
+    private final int explicitFlushAfterFlushes;
+    private final long maxDelayMicros;
+    private final FlushStats stats;
+
+    private final Runnable delayedFlushTask;
+
+    private ChannelHandlerContext ctx;
+    private Counter counter;
+    private boolean readInProgress;
+
+    /**
+     * 正在时间窗口中等待的 flush 次数
+     */
+    private int delayedFlushes;
+    private Future<?> scheduledFlush;
+
+    public FlushBatchingHandler(FlushStats stats) {
+        this(DEFAULT_EXPLICIT_FLUSH_AFTER_FLUSHES, 0, stats);
+    }
+
+    /**
+     * @param explicitFlushAfterFlushes 积累多少次 flush 后必须真正 flush
+     * @param maxDelayMicros            不在读循环中时，flush 最多推迟多久；0 表示与 FlushConsolidationHandler 相同，
+     *                                  只推迟到 EventLoop 的下一个任务
+     * @param stats                     统计信息
+     */
+    public FlushBatchingHandler(int explicitFlushAfterFlushes, long maxDelayMicros, FlushStats stats) {
+        // 有时间窗口时，读循环之外的 flush 由这里自己推迟，父类收到后立即执行
+        super(explicitFlushAfterFlushes, maxDelayMicros == 0);
+        if (maxDelayMicros < 0) {
+            throw new IllegalArgumentException("maxDelayMicros 不能小于 0: " + maxDelayMicros);
+        }
+        this.explicitFlushAfterFlushes = explicitFlushAfterFlushes;
+        this.maxDelayMicros = maxDelayMicros;
+        this.stats = stats;
+        this.delayedFlushTask = () -> {
+            scheduledFlush = null;
+            flushDelayed(ctx);
+        };
+    }
+
+    @Override
+    public void handlerAdded(ChannelHandlerContext ctx) throws Exception {
+        this.ctx = ctx;
+        super.handlerAdded(ctx);
+        // 父类真正 flush 时直接调用 ctx.flush()，只能在它前面统计实际写出的次数
+        counter = new Counter(stats);
+        ctx.pipeline().addBefore(ctx.name(), null, counter);
+    }
+
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) throws Exception {
+        flushDelayed(ctx);
+        super.handlerRemoved(ctx);
+        if (ctx.pipeline().context(counter) != null) {
+            ctx.pipeline().remove(counter);
+        }
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        readInProgress = true;
+        super.channelRead(ctx, msg);
+    }
+
+    @Override
+    public void channelReadComplete(ChannelHandlerContext ctx) throws Exception {
+        flushDelayed(ctx);
+        // 后面的 handler 在 channelReadComplete 中发出的 flush 仍算在读循环中，交给父类处理，不再等待时间窗口
+        super.channelReadComplete(ctx);
+        readInProgress = false;
+    }
+
+    @Override
+    public void flush(ChannelHandlerContext ctx) throws Exception {
+        if (readInProgress || maxDelayMicros == 0) {
+            super.flush(ctx);
+        } else if (++delayedFlushes >= explicitFlushAfterFlushes) {
+            flushDelayed(ctx);
+        } else if (scheduledFlush == null) {
+            scheduledFlush = ctx.executor().schedule(delayedFlushTask, maxDelayMicros, TimeUnit.MICROSECONDS);
+        }
+    }
+
+    @Override
+    public void channelWritabilityChanged(ChannelHandlerContext ctx) throws Exception {
+        if (!ctx.channel().isWritable()) {
+            flushDelayed(ctx);
+        }
+        super.channelWritabilityChanged(ctx);
+    }
+
+    @Override
+    public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) throws Exception {
+        flushDelayed(ctx);
+        super.exceptionCaught(ctx, cause);
+    }
+
+    @Override
+    public void disconnect(ChannelHandlerContext ctx, ChannelPromise promise) throws Exception {
+        flushDelayed(ctx);
+        super.disconnect(ctx, promise);
+    }
+
+    @Override
+    public void close(ChannelHandlerContext ctx, ChannelPromise promise) throws Exception {
+        flushDelayed(ctx);
+        super.close(ctx, promise);
+    }
+
+    /**
+     * 执行时间窗口中等待的 flush。此时不在读循环中，父类不合并，直接 flush
+     */
+    private void flushDelayed(ChannelHandlerContext ctx) {
+        if (scheduledFlush != null) {
+            scheduledFlush.cancel(false);
+            scheduledFlush = null;
+        }
+        if (delayedFlushes > 0) {
+            delayedFlushes = 0;
+            ctx.flush();
+        }
+    }
+
+    /**
+     * 统计经过它的 write 和 flush，即实际交给 socket 的次数
+     */
+    private static final class Counter extends ChannelOutboundHandlerAdapter {
+
+        private final FlushStats stats;
+        private int pendingWrites;
+
+        Counter(FlushStats stats) {
+            this.stats = stats;
+        }
+
+        @Override
+        public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+            pendingWrites++;
+            stats.recordWrite();
+            ctx.write(msg, promise);
+        }
+
+        @Override
+        public void flush(ChannelHandlerContext ctx) throws Exception {
+            if (pendingWrites > 0) {
+                pendingWrites = 0;
+                stats.recordFlush();
+            }
+            ctx.flush();
+        }
+    }
+}
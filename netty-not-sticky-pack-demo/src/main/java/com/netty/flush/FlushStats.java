@@ -0,0 +1,42 @@
+package com.netty.flush;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@link FlushBatchingHandler} 的统计信息，可以被多个连接共享
+ */
+public class FlushStats {
+
+    private final LongAdder writes = new LongAdder();
+    private final LongAdder flushes = new LongAdder();
+
+    void recordWrite() {
+        writes.increment();
+    }
+
+    void recordFlush() {
+        flushes.increment();
+    }
+
+    public long getWrites() {
+        return writes.sum();
+    }
+
+    public long getFlushes() {
+        return flushes.sum();
+    }
+
+    /**
+     * @return 平均每次真正的 flush（即一次 write 系统调用）合并了多少次 write
+     */
+    public double getAverageWritesPerFlush() {
+        long flushCount = flushes.sum();
+        return flushCount == 0 ? 0 : (double) writes.sum() / flushCount;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("writes=%d, flushes=%d, writes/flush=%.2f", getWrites(), getFlushes(),
+                getAverageWritesPerFlush());
+    }
+}
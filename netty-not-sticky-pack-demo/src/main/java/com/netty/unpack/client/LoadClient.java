@@ -0,0 +1,161 @@
+package com.netty.unpack.client;
+
+import com.netty.unpack.protocol.BodyFormat;
+import com.netty.unpack.protocol.Request;
+import com.netty.unpack.protocol.Response;
+import com.netty.unpack.protocol.TinyDecoder;
+import com.netty.unpack.protocol.TinyEncoder;
+import com.netty.unpack.protocol.TinyProtocol;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 压测客户端，用来评估 {@link com.netty.unpack.server.Server} 的容量。
+ * 建立多个连接，每个连接上以 pipeline 的方式发送请求（见 {@link LoadClientHandler}），
+ * 结束后打印吞吐量和延迟分位数。
+ *
+ * 参数（都可以省略）：
+ * --host=127.0.0.1 --port=8081
+ * --connections=4      连接数
+ * --depth=16           每个连接最多在途的请求数
+ * --rate=0             所有连接合计每秒发送的请求数（开环），0 表示收到响应就发下一个（闭环，测最大吞吐）
+ * --payload=256        请求负载的字节数，见 {@link PayloadSizes}
+ * --warmup=3 --duration=10   预热和统计的秒数
+ * --binary-codec       请求使用生成的编解码器而不是 FST
+ *
+ * 服务端会打印每个请求，压测时把它的标准输出重定向到 /dev/null。
+ */
+public class LoadClient {
+
+    private final String host;
+    private final int port;
+    private final int connections;
+    private final int depth;
+    private final double rate;
+    private final PayloadSizes payloadSizes;
+    private final BodyFormat format;
+
+    public LoadClient(String host, int port, int connections, int depth, double rate, PayloadSizes payloadSizes,
+                      BodyFormat format) {
+        this.host = host;
+        this.port = port;
+        this.connections = connections;
+        this.depth = depth;
+        this.rate = rate;
+        this.payloadSizes = payloadSizes;
+        this.format = format;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            options.put(eq < 0 ? arg : arg.substring(0, eq), eq < 0 ? "" : arg.substring(eq + 1));
+        }
+
+        LoadClient client = new LoadClient(
+                options.getOrDefault("--host", "127.0.0.1"),
+                Integer.parseInt(options.getOrDefault("--port", "8081")),
+                Integer.parseInt(options.getOrDefault("--connections", "4")),
+                Integer.parseInt(options.getOrDefault("--depth", "16")),
+                Double.parseDouble(options.getOrDefault("--rate", "0")),
+                PayloadSizes.parse(options.getOrDefault("--payload", "256")),
+                options.containsKey("--binary-codec") ? BodyFormat.BINARY : BodyFormat.FST);
+        client.run(Integer.parseInt(options.getOrDefault("--warmup", "3")),
+                Integer.parseInt(options.getOrDefault("--duration", "10")));
+    }
+
+    public void run(int warmupSeconds, int durationSeconds) throws Exception {
+        EventLoopGroup group = new NioEventLoopGroup();
+        LongAdder progress = new LongAdder();
+        List<LoadClientHandler> handlers = new ArrayList<>();
+        List<Channel> channels = new ArrayList<>();
+        try {
+            for (int i = 0; i < connections; i++) {
+                LoadClientHandler handler = new LoadClientHandler(depth, rate / connections, payloadSizes, progress);
+                Channel channel = new Bootstrap()
+                        .group(group)
+                        .channel(NioSocketChannel.class)
+                        .option(ChannelOption.TCP_NODELAY, true)
+                        .handler(new ChannelInitializer<SocketChannel>() {
+                            @Override
+                            public void initChannel(SocketChannel ch) {
+                                ch.pipeline()
+                                        .addLast(new TinyEncoder(Request.class, TinyProtocol.NO_COMPRESSION, format))
+                                        .addLast(new TinyDecoder(Response.class))
+                                        .addLast(handler);
+                            }
+                        })
+                        .connect(host, port).sync().channel();
+                handlers.add(handler);
+                channels.add(channel);
+            }
+
+            System.out.printf("connections=%d, depth=%d, %s, payload=%s, format=%s%n", connections, depth,
+                    rate > 0 ? "rate=" + rate + "/s（开环）" : "闭环", payloadSizes, format);
+            for (LoadClientHandler handler : handlers) {
+                handler.start();
+            }
+
+            printProgress("预热", warmupSeconds, progress);
+            for (LoadClientHandler handler : handlers) {
+                handler.resetStats();
+            }
+            long start = System.nanoTime();
+            printProgress("压测", durationSeconds, progress);
+            for (LoadClientHandler handler : handlers) {
+                handler.stop();
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+
+            LatencyHistogram total = new LatencyHistogram();
+            long completed = 0;
+            long errors = 0;
+            for (LoadClientHandler handler : handlers) {
+                long[] counts = handler.drainTo(total);
+                completed += counts[0];
+                errors += counts[1];
+            }
+            report(total, completed, errors, seconds);
+        } finally {
+            for (Channel channel : channels) {
+                channel.close();
+            }
+            group.shutdownGracefully().sync();
+        }
+    }
+
+    private static void printProgress(String phase, int seconds, LongAdder progress) throws InterruptedException {
+        for (int i = 1; i <= seconds; i++) {
+            TimeUnit.SECONDS.sleep(1);
+            System.out.printf("%s %ds: %d req/s%n", phase, i, progress.sumThenReset());
+        }
+    }
+
+    private static void report(LatencyHistogram histogram, long completed, long errors, double seconds) {
+        System.out.printf("请求数=%d, 错误数=%d, 吞吐量=%.0f req/s%n", completed, errors, completed / seconds);
+        System.out.printf("延迟(us): min=%.1f, mean=%.1f, max=%.1f%n", micros(histogram.getMin()),
+                histogram.getMean() / 1000, micros(histogram.getMax()));
+        for (String percentile : new String[]{"50", "90", "99", "99.9", "99.99"}) {
+            System.out.printf("  p%-6s %10.1f us%n", percentile,
+                    micros(histogram.getValueAtPercentile(Double.parseDouble(percentile))));
+        }
+    }
+
+    private static double micros(long nanos) {
+        return nanos / 1000.0;
+    }
+}
@@ -0,0 +1,225 @@
+package com.netty.unpack.client;
+
+import com.netty.unpack.protocol.Request;
+import com.netty.unpack.protocol.Response;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.util.concurrent.Future;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@link LoadClient} 中一个连接的发送与计时，所有状态只在该连接的 EventLoop 中访问。
+ *
+ * 同一个连接上最多有 depth 个请求在途（pipeline），服务端按顺序响应，所以按发送顺序匹配响应。
+ * 闭环模式下收到一个响应就补发一个请求，测的是最大吞吐；
+ * 开环模式下第 i 个请求的计划发送时间固定为 start + i / rate，在途请求已满时请求会排队，
+ * 这样的请求从计划发送时间开始计算延迟，服务端变慢时排队的时间也会计入延迟（避免 coordinated omission）；
+ * 只是在等本地定时器的请求从实际发送时开始计算，定时器的误差不算在服务端头上。
+ */
+public class LoadClientHandler extends SimpleChannelInboundHandler<Response> {
+
+    /**
+     * 开环模式下检查是否有到期请求的间隔。NioEventLoop 的 select 超时按毫秒取整，
+     * 更短的间隔会让 EventLoop 空转，在 CPU 少的机器上抢占服务端的 CPU
+     */
+    private static final long TICK_MICROS = 1000;
+
+    private final int depth;
+
+    /**
+     * 每纳秒发送的请求数，0 表示闭环
+     */
+    private final double requestsPerNano;
+
+    private final PayloadSizes payloadSizes;
+
+    /**
+     * 所有连接共享的完成数，用于打印进度
+     */
+    private final LongAdder progress;
+
+    private final LatencyHistogram histogram = new LatencyHistogram();
+
+    /**
+     * 在途请求的编号和开始时间，按发送顺序组成环形队列
+     */
+    private final long[] pendingIds;
+    private final long[] pendingStarts;
+    private int pendingHead;
+    private int pendingSize;
+
+    private ChannelHandlerContext ctx;
+    private boolean running;
+    private Future<?> tick;
+    private long startNanos;
+    private long nextRequestId;
+
+    /**
+     * 开环模式下下一个要发送的请求序号
+     */
+    private long nextIndex;
+
+    /**
+     * 开环模式下上一次检查到期请求的时间，以及检查完时在途请求是否已满
+     */
+    private long lastCheckNanos;
+    private boolean fullAtLastCheck;
+
+    private long completed;
+    private long errors;
+
+    public LoadClientHandler(int depth, double requestsPerSecond, PayloadSizes payloadSizes, LongAdder progress) {
+        if (depth <= 0) {
+            throw new IllegalArgumentException("depth 必须大于 0: " + depth);
+        }
+        this.depth = depth;
+        this.requestsPerNano = requestsPerSecond / TimeUnit.SECONDS.toNanos(1);
+        this.payloadSizes = payloadSizes;
+        this.progress = progress;
+        this.pendingIds = new long[depth];
+        this.pendingStarts = new long[depth];
+    }
+
+    @Override
+    public void handlerAdded(ChannelHandlerContext ctx) {
+        this.ctx = ctx;
+    }
+
+    /**
+     * 开始发送，可以在任意线程调用
+     */
+    public void start() {
+        ctx.executor().execute(() -> {
+            running = true;
+            startNanos = System.nanoTime();
+            if (requestsPerNano > 0) {
+                tick = ctx.executor().scheduleAtFixedRate(this::sendDue, 0, TICK_MICROS, TimeUnit.MICROSECONDS);
+            } else {
+                for (int i = 0; i < depth; i++) {
+                    send(startNanos);
+                }
+                ctx.flush();
+            }
+        });
+    }
+
+    /**
+     * 停止发送新的请求，在途请求的响应不再统计
+     */
+    public void stop() throws InterruptedException, ExecutionException {
+        ctx.executor().submit(() -> {
+            running = false;
+            if (tick != null) {
+                tick.cancel(false);
+            }
+        }).get();
+    }
+
+    /**
+     * 清空统计，用于预热结束时。开环模式下同时从现在开始重新计划发送时间，预热期间积压的请求不再补发
+     */
+    public void resetStats() throws InterruptedException, ExecutionException {
+        ctx.executor().submit(() -> {
+            startNanos = System.nanoTime();
+            nextIndex = 0;
+            lastCheckNanos = startNanos;
+            histogram.reset();
+            completed = 0;
+            errors = 0;
+        }).get();
+    }
+
+    /**
+     * 把本连接的统计加到 total 中，返回 {完成数, 错误数}
+     */
+    public long[] drainTo(LatencyHistogram total) throws InterruptedException, ExecutionException {
+        return ctx.executor().submit(() -> {
+            total.add(histogram);
+            return new long[]{completed, errors};
+        }).get();
+    }
+
+    @Override
+    protected void channelRead0(ChannelHandlerContext ctx, Response response) {
+        if (pendingSize == 0) {
+            errors++;
+            return;
+        }
+        long id = pendingIds[pendingHead];
+        long start = pendingStarts[pendingHead];
+        pendingHead = (pendingHead + 1) % depth;
+        pendingSize--;
+        if (!running) {
+            return;
+        }
+
+        long now = System.nanoTime();
+        histogram.record(now - start);
+        completed++;
+        progress.increment();
+        if (response.getError() != null || response.getRequestId() == null || response.getRequestId() != id) {
+            errors++;
+        }
+
+        if (requestsPerNano > 0) {
+            sendDue();
+        } else {
+            send(now);
+        }
+    }
+
+    @Override
+    public void channelReadComplete(ChannelHandlerContext ctx) {
+        ctx.flush();
+    }
+
+    @Override
+    public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+        cause.printStackTrace();
+        ctx.close();
+    }
+
+    /**
+     * 开环模式：发送所有已到计划时间、且在途数量允许的请求
+     */
+    private void sendDue() {
+        if (!running) {
+            return;
+        }
+        // 第 i 个请求的计划时间是 start + i / rate，到期的序号为 [0, elapsed * rate]
+        long now = System.nanoTime();
+        long dueCount = (long) ((now - startNanos) * requestsPerNano) + 1;
+        boolean sent = false;
+        while (nextIndex < dueCount && pendingSize < depth) {
+            long plannedNanos = startNanos + (long) (nextIndex / requestsPerNano);
+            // 两次检查之间在途数量不会变化（收到响应时也会检查），上次检查后才到期、且上次检查时没有满的请求，
+            // 只是在等定时器
+            send(plannedNanos > lastCheckNanos && !fullAtLastCheck ? now : plannedNanos);
+            nextIndex++;
+            sent = true;
+        }
+        lastCheckNanos = now;
+        fullAtLastCheck = pendingSize >= depth;
+        if (sent) {
+            ctx.flush();
+        }
+    }
+
+    private void send(long startTime) {
+        byte[] payload = new byte[payloadSizes.next()];
+
+        Request request = new Request();
+        request.setRequestId(++nextRequestId);
+        request.setMethodName("load");
+        request.setParameter(payload);
+
+        int tail = (pendingHead + pendingSize) % depth;
+        pendingIds[tail] = nextRequestId;
+        pendingStarts[tail] = startTime;
+        pendingSize++;
+        ctx.write(request, ctx.voidPromise());
+    }
+}
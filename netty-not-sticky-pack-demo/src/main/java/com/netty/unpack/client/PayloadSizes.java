@@ -0,0 +1,67 @@
+package com.netty.unpack.client;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 压测请求的负载大小分布，由命令行参数解析：
+ * <ul>
+ * <li>{@code 256}：固定 256 字节</li>
+ * <li>{@code 64-4096}：在 [64, 4096] 中均匀分布</li>
+ * <li>{@code exp:512}：均值为 512 的指数分布，大多数请求较小，偶尔有大请求</li>
+ * </ul>
+ */
+public abstract class PayloadSizes {
+
+    public abstract int next();
+
+    public static PayloadSizes parse(String spec) {
+        if (spec.startsWith("exp:")) {
+            double mean = Double.parseDouble(spec.substring("exp:".length()));
+            return new PayloadSizes() {
+                @Override
+                public int next() {
+                    return (int) Math.min(-mean * Math.log(1 - ThreadLocalRandom.current().nextDouble()), Integer.MAX_VALUE / 2);
+                }
+
+                @Override
+                public String toString() {
+                    return "exp:" + mean;
+                }
+            };
+        }
+        int dash = spec.indexOf('-');
+        if (dash > 0) {
+            int min = Integer.parseInt(spec.substring(0, dash));
+            int max = Integer.parseInt(spec.substring(dash + 1));
+            if (min < 0 || max < min) {
+                throw new IllegalArgumentException("非法的负载大小范围: " + spec);
+            }
+            return new PayloadSizes() {
+                @Override
+                public int next() {
+                    return ThreadLocalRandom.current().nextInt(min, max + 1);
+                }
+
+                @Override
+                public String toString() {
+                    return min + "-" + max;
+                }
+            };
+        }
+        int size = Integer.parseInt(spec);
+        if (size < 0) {
+            throw new IllegalArgumentException("非法的负载大小: " + spec);
+        }
+        return new PayloadSizes() {
+            @Override
+            public int next() {
+                return size;
+            }
+
+            @Override
+            public String toString() {
+                return String.valueOf(size);
+            }
+        };
+    }
+}
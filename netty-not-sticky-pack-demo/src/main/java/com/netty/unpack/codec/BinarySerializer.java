@@ -0,0 +1,61 @@
+package com.netty.unpack.codec;
+
+import com.netty.codec.Codecs;
+import com.netty.codec.FallbackCodec;
+import io.netty.buffer.ByteBuf;
+
+import java.io.IOException;
+
+/**
+ * 使用 netty-codec-processor 为 @BinaryCodec 类（Request、Response、User）生成的编解码器，不使用反射，也不写类名。
+ * 声明为 Object 的字段中出现的其它类型仍然交给 {@link FstSerializer}。
+ */
+public class BinarySerializer {
+
+    static {
+        Codecs.setFallback(new FallbackCodec() {
+
+            @Override
+            public void write(Object value, ByteBuf out) throws IOException {
+                FstSerializer.serialize(value, out);
+            }
+
+            @Override
+            public Object read(ByteBuf in, int length) throws IOException {
+                return FstSerializer.deserialize(in, length, Object.class);
+            }
+        });
+    }
+
+    /**
+     * 反序列化，返回时 readerIndex 前进 length 个字节
+     *
+     * @param in     数据所在的 ByteBuf，从 readerIndex 开始
+     * @param length 序列化数据的字节数
+     * @param clazz
+     * @param <T>
+     * @return
+     */
+    public static <T> T deserialize(ByteBuf in, int length, Class<T> clazz) throws IOException {
+        int start = in.readerIndex();
+        try {
+            return (T) Codecs.readObject(in.slice(start, length));
+        } finally {
+            in.readerIndex(start + length);
+        }
+    }
+
+    /**
+     * 序列化到 out 的 writerIndex 处
+     *
+     * @param obj
+     * @param out
+     * @param <T>
+     * @return 写入的字节数
+     */
+    public static <T> int serialize(T obj, ByteBuf out) throws IOException {
+        int start = out.writerIndex();
+        Codecs.writeObject(out, obj);
+        return out.writerIndex() - start;
+    }
+}
@@ -4,14 +4,31 @@
  */
 package com.netty.unpack.codec;
 
+import com.netty.unpack.model.User;
+import com.netty.unpack.protocol.Request;
+import com.netty.unpack.protocol.Response;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufInputStream;
 import org.nustaq.serialization.FSTConfiguration;
+import org.nustaq.serialization.FSTObjectInput;
+import org.nustaq.serialization.FSTObjectOutput;
+
+import java.io.IOException;
 
 /**
  * @author chenhx
  * @version FstSerializer.java, v 0.1 2018-08-08 下午 2:39
  */
 public class FstSerializer {
-    private static FSTConfiguration conf = FSTConfiguration.createDefaultConfiguration();
+    /**
+     * 每个线程使用自己的 FSTConfiguration，多个 EventLoop 线程之间不再竞争同一个配置内部的缓存。
+     * 预先注册的类序列化时只写一个很短的编号，而不是完整的类名；收发两端必须按相同的顺序注册相同的类。
+     */
+    private static final ThreadLocal<FSTConfiguration> CONF = ThreadLocal.withInitial(() -> {
+        FSTConfiguration conf = FSTConfiguration.createDefaultConfiguration();
+        conf.registerClass(Request.class, Response.class, User.class);
+        return conf;
+    });
 
     /**
      * 反序列化
@@ -22,7 +39,36 @@ public class FstSerializer {
      * @return
      */
     public static <T> T deserialize(byte[] data, Class<T> clazz) {
-        return (T) conf.asObject(data);
+        return (T) CONF.get().asObject(data);
+    }
+
+    /**
+     * 直接从 ByteBuf 中反序列化，不再先拷贝出一个 byte[]。
+     * FSTConfiguration 为每个线程缓存了一个 FSTObjectInput，这里每次复用它，只需重置输入源；
+     * 堆内存并且数据从数组开头开始时直接使用底层数组，否则通过 ByteBufInputStream 读入 FSTObjectInput 复用的内部缓冲区。
+     * 无论读了多少，返回时 readerIndex 都前进 length 个字节。
+     *
+     * @param in     数据所在的 ByteBuf，从 readerIndex 开始
+     * @param length 序列化数据的字节数
+     * @param clazz
+     * @param <T>
+     * @return
+     */
+    public static <T> T deserialize(ByteBuf in, int length, Class<T> clazz) throws IOException {
+        int start = in.readerIndex();
+        try {
+            FSTObjectInput input;
+            if (in.hasArray() && in.arrayOffset() + start == 0) {
+                input = CONF.get().getObjectInput(in.array(), length);
+            } else {
+                input = CONF.get().getObjectInput(new ByteBufInputStream(in, length));
+            }
+            return (T) input.readObject();
+        } catch (ClassNotFoundException e) {
+            throw new IOException("反序列化失败, 找不到类: " + e.getMessage(), e);
+        } finally {
+            in.readerIndex(start + length);
+        }
     }
 
     /**
@@ -33,6 +79,23 @@ public class FstSerializer {
      * @return
      */
     public static <T> byte[] serialize(T obj) {
-        return conf.asByteArray(obj);
+        return CONF.get().asByteArray(obj);
+    }
+
+    /**
+     * 直接序列化到 ByteBuf 的 writerIndex 处，不再创建临时的 byte[]。
+     * FSTConfiguration 为每个线程缓存了一个 FSTObjectOutput，写完后把它复用的内部缓冲区中的数据一次性写入 out。
+     *
+     * @param obj
+     * @param out 目标 ByteBuf，一般是编码器分配的池化直接内存
+     * @param <T>
+     * @return 写入的字节数
+     */
+    public static <T> int serialize(T obj, ByteBuf out) throws IOException {
+        FSTObjectOutput output = CONF.get().getObjectOutput();
+        output.writeObject(obj);
+        int written = output.getWritten();
+        out.writeBytes(output.getBuffer(), 0, written);
+        return written;
     }
-}
\ No newline at end of file
+}
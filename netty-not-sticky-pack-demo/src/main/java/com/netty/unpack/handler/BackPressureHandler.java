@@ -0,0 +1,48 @@
+package com.netty.unpack.handler;
+
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+
+/**
+ * 出站缓冲区超过高水位（Channel 变为不可写）时关闭 autoRead，不再读取新的请求；降到低水位以下后重新打开。
+ * 对端读得慢时，服务端不会因为不停地读请求、写响应而把响应无限制地堆积在内存中。
+ * 水位通过 ChannelOption.WRITE_BUFFER_WATER_MARK 设置。
+ *
+ * 没有状态，可以被多个连接共享。
+ */
+@ChannelHandler.Sharable
+public class BackPressureHandler extends ChannelInboundHandlerAdapter {
+
+    private final BackPressureStats stats;
+
+    public BackPressureHandler(BackPressureStats stats) {
+        this.stats = stats;
+    }
+
+    @Override
+    public void channelActive(ChannelHandlerContext ctx) throws Exception {
+        stats.register(ctx.channel());
+        ctx.fireChannelActive();
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        stats.unregister(ctx.channel());
+        ctx.fireChannelInactive();
+    }
+
+    @Override
+    public void channelWritabilityChanged(ChannelHandlerContext ctx) throws Exception {
+        boolean writable = ctx.channel().isWritable();
+        if (ctx.channel().config().isAutoRead() != writable) {
+            ctx.channel().config().setAutoRead(writable);
+            if (writable) {
+                stats.recordResume();
+            } else {
+                stats.recordPause();
+            }
+        }
+        ctx.fireChannelWritabilityChanged();
+    }
+}
@@ -0,0 +1,91 @@
+package com.netty.unpack.handler;
+
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelOutboundBuffer;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@link BackPressureHandler} 的统计信息，可以被多个连接共享。
+ * 除了暂停 / 恢复读取的次数，还可以查看每个连接的出站缓冲区中还有多少字节没有写出。
+ */
+public class BackPressureStats {
+
+    private final LongAdder pauses = new LongAdder();
+    private final LongAdder resumes = new LongAdder();
+    private final Set<Channel> channels = ConcurrentHashMap.newKeySet();
+
+    void register(Channel channel) {
+        channels.add(channel);
+    }
+
+    void unregister(Channel channel) {
+        channels.remove(channel);
+    }
+
+    void recordPause() {
+        pauses.increment();
+    }
+
+    void recordResume() {
+        resumes.increment();
+    }
+
+    public long getPauses() {
+        return pauses.sum();
+    }
+
+    public long getResumes() {
+        return resumes.sum();
+    }
+
+    /**
+     * @return 当前因为不可写而暂停读取的连接数
+     */
+    public int getPausedChannels() {
+        int paused = 0;
+        for (Channel channel : channels) {
+            if (!channel.config().isAutoRead()) {
+                paused++;
+            }
+        }
+        return paused;
+    }
+
+    /**
+     * @return 每个连接出站缓冲区中等待写出的字节数，key 为连接的远端地址
+     */
+    public Map<String, Long> getPendingBytes() {
+        Map<String, Long> pendingBytes = new LinkedHashMap<>();
+        for (Channel channel : channels) {
+            pendingBytes.put(String.valueOf(channel.remoteAddress()), pendingBytes(channel));
+        }
+        return pendingBytes;
+    }
+
+    public long getTotalPendingBytes() {
+        long total = 0;
+        for (Channel channel : channels) {
+            total += pendingBytes(channel);
+        }
+        return total;
+    }
+
+    /**
+     * 在其它线程中读取，只是一个近似值
+     */
+    private static long pendingBytes(Channel channel) {
+        ChannelOutboundBuffer buffer = channel.unsafe().outboundBuffer();
+        return buffer == null ? 0 : buffer.totalPendingWriteBytes();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("channels=%d, paused=%d, pauses=%d, resumes=%d, pendingBytes=%d", channels.size(),
+                getPausedChannels(), getPauses(), getResumes(), getTotalPendingBytes());
+    }
+}
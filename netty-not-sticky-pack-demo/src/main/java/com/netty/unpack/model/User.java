@@ -4,6 +4,7 @@
  */
 package com.netty.unpack.model;
 
+import com.netty.codec.BinaryCodec;
 import lombok.Data;
 
 import java.io.Serializable;
@@ -12,6 +13,7 @@ import java.io.Serializable;
  * 传输测试的实体类
  */
 @Data
+@BinaryCodec(id = 3)
 public class User implements Serializable {
 
     private static final long serialVersionUID = -5135011481747489263L;
@@ -0,0 +1,131 @@
+package com.netty.unpack.protocol;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.ChannelPromise;
+import io.netty.handler.codec.EncoderException;
+import io.netty.util.ReferenceCountUtil;
+import io.netty.util.concurrent.PromiseNotifier;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 批量编码的 TinyEncoder，帧格式与 {@link TinyEncoder} 完全相同。
+ * TinyEncoder 每个对象单独分配一个 ByteBuf，一次突发写出很多个 Response 时，就会有很多个小缓冲区进入发送队列。
+ * 该编码器把两次 flush 之间连续写出的对象依次编码到同一个池化缓冲区中（长度头内联在其中），flush 时作为一个 ByteBuf 写出，
+ * 缓冲区超过 maxBatchBytes 时提前写出。每个对象原来的 promise 在整批写完后一起完成。
+ *
+ * 保存了未写出的缓冲区，每个 channel 需要单独的实例。
+ */
+public class BatchingTinyEncoder extends ChannelOutboundHandlerAdapter {
+
+    public static final int DEFAULT_MAX_BATCH_BYTES = 64 * 1024;
+
+    private final Class<?> genericClass;
+    private final int maxBatchBytes;
+    private final int compressThreshold;
+    private final BodyFormat format;
+
+    /**
+     * 正在积累的缓冲区，以及其中每一帧对应的 promise
+     */
+    private ByteBuf batch;
+    private final List<ChannelPromise> promises = new ArrayList<>();
+
+    public BatchingTinyEncoder(Class<?> genericClass) {
+        this(genericClass, DEFAULT_MAX_BATCH_BYTES, TinyProtocol.NO_COMPRESSION, BodyFormat.FST);
+    }
+
+    /**
+     * @param genericClass      消息类型，其它类型的消息原样传给下一个 handler
+     * @param maxBatchBytes     积累到多少字节时不等 flush 就先写出
+     * @param compressThreshold 单个消息体达到多少字节时压缩，见 {@link TinyEncoder#TinyEncoder(Class, int, BodyFormat)}
+     * @param format            消息体的序列化方式
+     */
+    public BatchingTinyEncoder(Class<?> genericClass, int maxBatchBytes, int compressThreshold, BodyFormat format) {
+        if (maxBatchBytes <= 0) {
+            throw new IllegalArgumentException("maxBatchBytes 必须大于 0: " + maxBatchBytes);
+        }
+        this.genericClass = genericClass;
+        this.maxBatchBytes = maxBatchBytes;
+        this.compressThreshold = compressThreshold;
+        this.format = format;
+    }
+
+    @Override
+    public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+        if (!genericClass.isInstance(msg)) {
+            // 先写出已积累的数据，保证顺序不变
+            writeBatch(ctx);
+            ctx.write(msg, promise);
+            return;
+        }
+
+        if (batch == null) {
+            batch = ctx.alloc().ioBuffer();
+        }
+        int frameStart = batch.writerIndex();
+        try {
+            TinyEncoder.writeFrame(msg, batch, compressThreshold, format);
+        } catch (Throwable e) {
+            // 只丢弃这一帧，已经编码好的帧不受影响
+            batch.writerIndex(frameStart);
+            promise.setFailure(e instanceof EncoderException ? e : new EncoderException(e));
+            return;
+        } finally {
+            ReferenceCountUtil.release(msg);
+        }
+
+        if (!promise.isVoid()) {
+            promises.add(promise);
+        }
+        if (batch.readableBytes() >= maxBatchBytes) {
+            writeBatch(ctx);
+        }
+    }
+
+    @Override
+    public void flush(ChannelHandlerContext ctx) throws Exception {
+        writeBatch(ctx);
+        ctx.flush();
+    }
+
+    @Override
+    public void close(ChannelHandlerContext ctx, ChannelPromise promise) throws Exception {
+        // 交给发送队列，由它决定发送还是在关闭时让 promise 失败
+        writeBatch(ctx);
+        ctx.close(promise);
+    }
+
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) throws Exception {
+        writeBatch(ctx);
+    }
+
+    private void writeBatch(ChannelHandlerContext ctx) {
+        ByteBuf buf = batch;
+        if (buf == null) {
+            return;
+        }
+        batch = null;
+
+        if (!buf.isReadable()) {
+            buf.release();
+            return;
+        }
+
+        if (promises.isEmpty()) {
+            ctx.write(buf, ctx.voidPromise());
+        } else if (promises.size() == 1) {
+            ctx.write(buf, promises.get(0));
+        } else {
+            ChannelPromise[] batchPromises = promises.toArray(new ChannelPromise[0]);
+            ChannelFuture future = ctx.write(buf);
+            future.addListener(new PromiseNotifier<Void, ChannelFuture>(batchPromises));
+        }
+        promises.clear();
+    }
+}
@@ -0,0 +1,48 @@
+package com.netty.unpack.protocol;
+
+import com.netty.unpack.codec.BinarySerializer;
+import com.netty.unpack.codec.FstSerializer;
+import io.netty.buffer.ByteBuf;
+
+import java.io.IOException;
+
+/**
+ * 消息体的序列化方式，记录在帧的 flags 中，解码器据此选择反序列化方式，因此两种方式可以在同一个连接上混用
+ */
+public enum BodyFormat {
+
+    /**
+     * FST，可以传输任意 Serializable 对象
+     */
+    FST((byte) 0),
+
+    /**
+     * 编译时生成的编解码器，见 {@link BinarySerializer}
+     */
+    BINARY(TinyProtocol.FLAG_BINARY_CODEC);
+
+    private final byte flag;
+
+    BodyFormat(byte flag) {
+        this.flag = flag;
+    }
+
+    byte flag() {
+        return flag;
+    }
+
+    static BodyFormat of(byte flags) {
+        return (flags & TinyProtocol.FLAG_BINARY_CODEC) != 0 ? BINARY : FST;
+    }
+
+    /**
+     * @return 写入的字节数
+     */
+    int write(Object in, ByteBuf out) throws IOException {
+        return this == BINARY ? BinarySerializer.serialize(in, out) : FstSerializer.serialize(in, out);
+    }
+
+    Object read(ByteBuf in, int length, Class<?> clazz) throws IOException {
+        return this == BINARY ? BinarySerializer.deserialize(in, length, clazz) : FstSerializer.deserialize(in, length, clazz);
+    }
+}
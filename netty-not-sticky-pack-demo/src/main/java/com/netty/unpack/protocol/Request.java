@@ -1,6 +1,9 @@
 package com.netty.unpack.protocol;
 
 
+import com.netty.codec.BinaryCodec;
+import com.netty.codec.Codecs;
+import com.netty.codec.TypedBy;
 import lombok.Data;
 
 import java.io.Serializable;
@@ -9,11 +12,24 @@ import java.io.Serializable;
  * 请求数据
  */
 @Data
+@BinaryCodec(id = 1)
 public class Request implements Serializable {
     private static final long serialVersionUID = -2747321595912488569L;
     private Long requestId;
     private String className;
     private String methodName;
-    private Class<?> parameterType;
+
+    /**
+     * 参数的类型编号，即参数类型上 @BinaryCodec 的 id，由 {@link #setParameter} 通过 {@link Codecs#idOf} 设置。
+     * 0 表示没有参数或参数类型没有编解码器，这时参数带着类型标记写入
+     */
+    private int parameterType;
+
+    @TypedBy("parameterType")
     private Object parameter;
-}
\ No newline at end of file
+
+    public void setParameter(Object parameter) {
+        this.parameter = parameter;
+        this.parameterType = Codecs.idOf(parameter);
+    }
+}
@@ -1,5 +1,6 @@
 package com.netty.unpack.protocol;
 
+import com.netty.codec.BinaryCodec;
 import lombok.Data;
 
 import java.io.Serializable;
@@ -8,6 +9,7 @@ import java.io.Serializable;
  * 响应数据
  */
 @Data
+@BinaryCodec(id = 2)
 public class Response implements Serializable {
     private static final long serialVersionUID = -3136380221020337915L;
     private Long requestId;
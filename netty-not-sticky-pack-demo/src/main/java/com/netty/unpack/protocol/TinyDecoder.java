@@ -1,23 +1,56 @@
 package com.netty.unpack.protocol;
 
-import com.netty.unpack.codec.FstSerializer;
 import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.ByteToMessageDecoder;
+import io.netty.handler.codec.CorruptedFrameException;
+import io.netty.handler.codec.TooLongFrameException;
+import io.netty.handler.codec.compression.Snappy;
 
 import java.util.List;
 
+/**
+ * 分包和反序列化在同一个解码器中一次完成：读到长度域后，等收齐整个消息体就直接从累积缓冲区中反序列化，
+ * 前面不需要再加 LengthFieldBasedFrameDecoder，每个消息只经过一个累积缓冲区、只读一次长度域。
+ */
 public class TinyDecoder extends ByteToMessageDecoder {
 
     /**
-     * 头部长度字节数
-     * 由于在 TinyEncoder 的 encode 方法中使用的是 writeInt，int为4个字节
+     * 默认的最大消息体长度
      */
-    private Integer HEAD_LENGTH = 4;
-    private Class<?> genericClass;
+    public static final int DEFAULT_MAX_FRAME_LENGTH = 1024 * 1024;
+
+    private final Class<?> genericClass;
+    private final int maxFrameLength;
+
+    /**
+     * 超长的消息还有多少字节没有丢弃
+     */
+    private long bytesToDiscard;
+
+    /**
+     * 解压用的 Snappy 带有解码状态，每个解码器（即每个 channel）一个
+     */
+    private final Snappy snappy = new Snappy();
 
     public TinyDecoder(Class<?> genericClass) {
+        this(genericClass, DEFAULT_MAX_FRAME_LENGTH, MERGE_CUMULATOR);
+    }
+
+    /**
+     * @param genericClass   消息类型
+     * @param maxFrameLength 最大消息体长度，超过时读到长度域就立即抛出 TooLongFrameException，并丢弃该消息；
+     *                       压缩的消息体解压后也不能超过这个长度
+     * @param cumulator      累积缓冲区的方式：MERGE_CUMULATOR 把新数据拷贝到一个连续的缓冲区中，
+     *                       COMPOSITE_CUMULATOR 用 CompositeByteBuf 拼接而不拷贝，适合消息体很大、分多次到达的情况
+     */
+    public TinyDecoder(Class<?> genericClass, int maxFrameLength, Cumulator cumulator) {
+        if (maxFrameLength <= 0) {
+            throw new IllegalArgumentException("maxFrameLength 必须大于 0: " + maxFrameLength);
+        }
         this.genericClass = genericClass;
+        this.maxFrameLength = maxFrameLength;
+        setCumulator(cumulator);
     }
 
     /**
@@ -28,30 +61,79 @@ public class TinyDecoder extends ByteToMessageDecoder {
      * @param out
      */
     @Override
-    public final void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) {
+    public final void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) throws Exception {
+
+        // 正在丢弃一个超长的消息
+        if (bytesToDiscard > 0) {
+            int discard = (int) Math.min(bytesToDiscard, in.readableBytes());
+            in.skipBytes(discard);
+            bytesToDiscard -= discard;
+            return;
+        }
 
-        //头部信息是int类型，长度是4，所以信息长度不可能小于4的
-        if (in.readableBytes() < HEAD_LENGTH) {
+        //头部是 int 类型的长度和 1 个字节的 flags，见 TinyProtocol
+        if (in.readableBytes() < TinyProtocol.HEAD_LENGTH) {
             return;
         }
-        //标记当前的 readIndex 的位置
-        in.markReaderIndex();
 
-        //读取传送过来的消息的长度。ByteBuf 的 readInt() 方法会让他的 readIndex 增加 4。指针会向前移动 4
-        int dataLength = in.readInt();
+        // 只查看长度域，不移动 readIndex；收齐整个消息之前不消费任何数据。长度包含 flags 的 1 个字节
+        int dataLength = in.getInt(in.readerIndex());
+        if (dataLength < 1) {
+            in.skipBytes(in.readableBytes());
+            throw new CorruptedFrameException("非法的消息长度: " + dataLength);
+        }
+        if (dataLength > maxFrameLength) {
+            in.skipBytes(TinyProtocol.LENGTH_FIELD_LENGTH);
+            int discard = Math.min(dataLength, in.readableBytes());
+            in.skipBytes(discard);
+            bytesToDiscard = dataLength - discard;
+            throw new TooLongFrameException("消息长度 " + dataLength + " 超过了最大长度 " + maxFrameLength);
+        }
 
-        // 如果收到的消息体长度小于我们传送过来的消息长度，则 resetReaderIndex，它是配合 markReaderIndex 使用的。是把 readIndex
-        // 重置到 mark 的地方。
-        if (in.readableBytes() < dataLength) {
-            in.resetReaderIndex();
+        if (in.readableBytes() < TinyProtocol.LENGTH_FIELD_LENGTH + dataLength) {
             return;
         }
+        in.skipBytes(TinyProtocol.LENGTH_FIELD_LENGTH);
+        byte flags = in.readByte();
+        int bodyLength = dataLength - 1;
+        BodyFormat format = BodyFormat.of(flags);
+
+        if ((flags & TinyProtocol.FLAG_COMPRESSED) == 0) {
+            //反序列化，直接从 ByteBuf 中读取，不再拷贝出一个 byte[]
+            out.add(format.read(in, bodyLength, genericClass));
+            return;
+        }
+
+        ByteBuf body = in.readSlice(bodyLength);
+        int uncompressedLength = peekVarint32(body);
+        if (uncompressedLength < 0 || uncompressedLength > maxFrameLength) {
+            throw new TooLongFrameException("解压后的消息长度 " + uncompressedLength + " 超过了最大长度 " + maxFrameLength);
+        }
+        ByteBuf uncompressed = ctx.alloc().buffer(uncompressedLength);
+        try {
+            snappy.reset();
+            snappy.decode(body, uncompressed);
+            out.add(format.read(uncompressed, uncompressed.readableBytes(), genericClass));
+        } finally {
+            uncompressed.release();
+        }
+    }
 
-        byte[] data = new byte[dataLength];
-        in.readBytes(data);
-        //反序列化
-        Object obj = FstSerializer.deserialize(data, genericClass);
-        out.add(obj);
+    /**
+     * 读取 Snappy 数据开头用 varint 表示的原始长度，不移动 readIndex
+     *
+     * @return 原始长度，格式错误时返回 -1
+     */
+    private static int peekVarint32(ByteBuf in) {
+        int result = 0;
+        for (int i = 0; i < 5 && i < in.readableBytes(); i++) {
+            int b = in.getByte(in.readerIndex() + i);
+            result |= (b & 0x7F) << (7 * i);
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+        }
+        return -1;
     }
 
 }
@@ -1,10 +1,12 @@
 package com.netty.unpack.protocol;
 
-import com.netty.unpack.codec.FstSerializer;
 import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelHandler;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.MessageToByteEncoder;
+import io.netty.handler.codec.compression.Snappy;
+
+import java.io.IOException;
 
 /**
  * Encoder
@@ -14,8 +16,30 @@ public class TinyEncoder extends MessageToByteEncoder {
 
     private Class<?> genericClass;
 
+    /**
+     * 消息体达到多少字节时压缩，{@link TinyProtocol#NO_COMPRESSION} 表示不压缩
+     */
+    private final int compressThreshold;
+
+    private final BodyFormat format;
+
     public TinyEncoder(Class<?> genericClass) {
+        this(genericClass, TinyProtocol.NO_COMPRESSION);
+    }
+
+    public TinyEncoder(Class<?> genericClass, int compressThreshold) {
+        this(genericClass, compressThreshold, BodyFormat.FST);
+    }
+
+    /**
+     * @param genericClass      消息类型
+     * @param compressThreshold 序列化后达到多少字节时用 Snappy 压缩，{@link TinyProtocol#NO_COMPRESSION} 表示不压缩
+     * @param format            消息体的序列化方式
+     */
+    public TinyEncoder(Class<?> genericClass, int compressThreshold, BodyFormat format) {
         this.genericClass = genericClass;
+        this.compressThreshold = compressThreshold;
+        this.format = format;
     }
 
     /**
@@ -27,17 +51,51 @@ public class TinyEncoder extends MessageToByteEncoder {
      * @throws Exception
      */
     @Override
-    public void encode(ChannelHandlerContext ctx, Object in, ByteBuf out) {
+    public void encode(ChannelHandlerContext ctx, Object in, ByteBuf out) throws Exception {
 
         //判断解码类型
         if (genericClass.isInstance(in)) {
-            //序列化
-            byte[] data = FstSerializer.serialize(in);
-            //设置消息头为长度。消息头类型为int
-            out.writeInt(data.length);
-            //消息体
-            out.writeBytes(data);
+            writeFrame(in, out, compressThreshold, format);
         }
     }
 
+    /**
+     * 把一个对象编码成一帧写入 out，格式见 {@link TinyProtocol}。{@link BatchingTinyEncoder} 也使用这个方法
+     *
+     * @param in                要编码的对象
+     * @param out               目标 ByteBuf
+     * @param compressThreshold 消息体达到多少字节时压缩，{@link TinyProtocol#NO_COMPRESSION} 表示不压缩
+     * @param format            消息体的序列化方式
+     */
+    static void writeFrame(Object in, ByteBuf out, int compressThreshold, BodyFormat format) throws IOException {
+        //先占住消息头的 4 个字节，消息头类型为int，后面是 1 个字节的 flags
+        int lengthIndex = out.writerIndex();
+        int flagsIndex = lengthIndex + TinyProtocol.LENGTH_FIELD_LENGTH;
+        out.writeInt(0);
+        out.writeByte(format.flag());
+        //序列化，消息体直接写入 out
+        int bodyIndex = out.writerIndex();
+        int length = format.write(in, out);
+
+        // 消息体较大时压缩，压缩后没有变小就保留原始数据
+        if (compressThreshold >= 0 && length >= compressThreshold) {
+            ByteBuf compressed = out.alloc().buffer(length);
+            try {
+                new Snappy().encode(out.slice(bodyIndex, length), compressed, length);
+                int compressedLength = compressed.readableBytes();
+                if (compressedLength < length) {
+                    out.writerIndex(bodyIndex);
+                    out.writeBytes(compressed);
+                    out.setByte(flagsIndex, format.flag() | TinyProtocol.FLAG_COMPRESSED);
+                    length = compressedLength;
+                }
+            } finally {
+                compressed.release();
+            }
+        }
+
+        //回填消息头为 flags + 消息体的长度
+        out.setInt(lengthIndex, 1 + length);
+    }
+
 }
@@ -0,0 +1,45 @@
+package com.netty.unpack.protocol;
+
+/**
+ * TinyEncoder / TinyDecoder 使用的帧格式：
+ *
+ * <pre>
+ * +--------+-------+-------------------+
+ * | length | flags |       body        |
+ * |   4B   |  1B   |   length - 1 字节  |
+ * +--------+-------+-------------------+
+ * </pre>
+ *
+ * length 是 flags 和 body 的总字节数。body 默认是 FST 序列化后的对象，flags 中带有 {@link #FLAG_BINARY_CODEC} 时
+ * 是生成的编解码器输出的数据，见 {@link BodyFormat}；带有 {@link #FLAG_COMPRESSED} 时，body 是用 Snappy 压缩后的上述数据。
+ */
+public final class TinyProtocol {
+
+    /**
+     * 长度域的字节数
+     */
+    public static final int LENGTH_FIELD_LENGTH = 4;
+
+    /**
+     * 长度域 + flags 的字节数
+     */
+    public static final int HEAD_LENGTH = LENGTH_FIELD_LENGTH + 1;
+
+    /**
+     * 消息体经过 Snappy 压缩
+     */
+    public static final byte FLAG_COMPRESSED = 0x01;
+
+    /**
+     * 消息体使用 {@link BodyFormat#BINARY} 序列化
+     */
+    public static final byte FLAG_BINARY_CODEC = 0x02;
+
+    /**
+     * 不压缩
+     */
+    public static final int NO_COMPRESSION = -1;
+
+    private TinyProtocol() {
+    }
+}
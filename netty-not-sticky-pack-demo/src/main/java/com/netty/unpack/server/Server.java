@@ -4,6 +4,12 @@
  */
 package com.netty.unpack.server;
 
+import com.netty.unpack.handler.BackPressureHandler;
+import com.netty.unpack.handler.BackPressureStats;
+import com.netty.flush.FlushBatchingHandler;
+import com.netty.flush.FlushStats;
+import com.netty.unpack.protocol.BatchingTinyEncoder;
+import com.netty.unpack.protocol.BodyFormat;
 import com.netty.unpack.protocol.Request;
 import com.netty.unpack.protocol.Response;
 import com.netty.unpack.protocol.TinyDecoder;
@@ -12,33 +18,78 @@ import io.netty.bootstrap.ServerBootstrap;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelOption;
+import io.netty.channel.WriteBufferWaterMark;
 import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.SocketChannel;
 import io.netty.channel.socket.nio.NioServerSocketChannel;
-import io.netty.handler.codec.LengthFieldBasedFrameDecoder;
+
+import java.util.concurrent.TimeUnit;
 
 public class Server {
 
     private final int port;
 
+    private final ServerOptions options;
+
+    /**
+     * 开启 flush 合并时的统计信息
+     */
+    private final FlushStats flushStats = new FlushStats();
+
+    private final BackPressureStats backPressureStats = new BackPressureStats();
+
     public Server(int port) {
+        this(port, new ServerOptions());
+    }
+
+    public Server(int port, ServerOptions options) {
         this.port = port;
+        this.options = options;
+    }
+
+    public FlushStats getFlushStats() {
+        return flushStats;
+    }
+
+    public BackPressureStats getBackPressureStats() {
+        return backPressureStats;
     }
 
     public static void main(String[] args) throws Exception {
         int port = 8081;
-        new Server(port).start();
+
+        // 启动参数带 --consolidate-flush 时开启 flush 合并，带 --batch-encode 时开启批量编码，
+        // 带 --compress=字节数 时压缩超过该大小的响应，带 --binary-codec 时响应使用生成的编解码器而不是 FST，
+        // 带 --water-mark=低水位,高水位 时设置出站缓冲区的水位（字节），默认 32KB,64KB
+        ServerOptions options = new ServerOptions();
+        for (String arg : args) {
+            if (arg.equals("--consolidate-flush")) {
+                options.setConsolidateFlush(true);
+            } else if (arg.equals("--batch-encode")) {
+                options.setBatchEncode(true);
+            } else if (arg.equals("--binary-codec")) {
+                options.setFormat(BodyFormat.BINARY);
+            } else if (arg.startsWith("--compress=")) {
+                options.setCompressThreshold(Integer.parseInt(arg.substring("--compress=".length())));
+            } else if (arg.startsWith("--water-mark=")) {
+                String[] marks = arg.substring("--water-mark=".length()).split(",");
+                options.setWaterMark(new WriteBufferWaterMark(Integer.parseInt(marks[0]), Integer.parseInt(marks[1])));
+            }
+        }
+        new Server(port, options).start();
     }
 
     public void start() throws Exception {
         NioEventLoopGroup bossGroup = new NioEventLoopGroup(1);
         NioEventLoopGroup workerGroup = new NioEventLoopGroup();
         try {
+            BackPressureHandler backPressureHandler = new BackPressureHandler(backPressureStats);
             ServerBootstrap b = new ServerBootstrap();
             b.group(bossGroup, workerGroup)
                     .channel(NioServerSocketChannel.class)
 
                     /**
+                     * 分包由 TinyDecoder 自己完成，不再使用 LengthFieldBasedFrameDecoder。下面是它的参数说明，留作参考：
                      * byteOrder：表示字节流表示的数据是大端还是小端，用于长度域的读取。默认 Netty 是大端序 ByteOrder.BIG_ENDIAN（可选）。
                      * maxFrameLength：表示的是包的最大长度，超出包的最大长度 netty将会报错。
                      * lengthFieldOffset：是指长度域（Length）的偏移量，表示跳过指定长度字节后才是长度域，也就是length前面的字节是头部信息。
@@ -51,19 +102,37 @@ public class Server {
                         @Override
                         public void initChannel(SocketChannel ch) {
 
+                            ch.pipeline().addLast(backPressureHandler);
+                            if (options.isConsolidateFlush()) {
+                                // 放在最前面，才能合并后面所有 handler 发出的 flush
+                                ch.pipeline().addLast(new FlushBatchingHandler(flushStats));
+                            }
                             ch.pipeline()
-                                    .addLast(new LengthFieldBasedFrameDecoder(1024 * 1024, 0, 4, 0, 0))
                                     // 添加编解码. 发送自定义的类型, 而Handler的方法接收的msg参数的实际类型也是相应的自定义类了
                                     .addLast(new TinyDecoder(Request.class))
-                                    .addLast(new TinyEncoder(Response.class))
+                                    .addLast(options.isBatchEncode()
+                                            ? new BatchingTinyEncoder(Response.class, BatchingTinyEncoder.DEFAULT_MAX_BATCH_BYTES,
+                                                    options.getCompressThreshold(), options.getFormat())
+                                            : new TinyEncoder(Response.class, options.getCompressThreshold(), options.getFormat()))
                                     .addLast(new ServerHandler());
                         }
                     })
                     .option(ChannelOption.SO_BACKLOG, 128)
-                    .childOption(ChannelOption.SO_KEEPALIVE, true);
+                    .childOption(ChannelOption.SO_KEEPALIVE, true)
+                    .childOption(ChannelOption.TCP_NODELAY, true)
+                    .childOption(ChannelOption.WRITE_BUFFER_WATER_MARK, options.getWaterMark());
 
             ChannelFuture f = b.bind(port).sync();
             System.out.println(Server.class.getName() + " started and listen on " + f.channel().localAddress());
+            if (options.isConsolidateFlush()) {
+                workerGroup.scheduleAtFixedRate(() -> System.out.println("flush 合并: " + flushStats),
+                        10, 10, TimeUnit.SECONDS);
+            }
+            workerGroup.scheduleAtFixedRate(() -> {
+                if (backPressureStats.getPauses() > 0 || backPressureStats.getTotalPendingBytes() > 0) {
+                    System.out.println("背压: " + backPressureStats);
+                }
+            }, 10, 10, TimeUnit.SECONDS);
             f.channel().closeFuture().sync();
 
         } finally {
@@ -31,14 +31,17 @@ public class ServerHandler extends SimpleChannelInboundHandler<Request> {
         user.setAge(21);
 
         Response response = new Response();
-        response.setRequestId(2L);
+        response.setRequestId(request.getRequestId());
         response.setResult(user);
 
         /**
+         * 这里只 write，等这一次读到的请求都处理完后在 channelReadComplete 中统一 flush，
+         * 这样 BatchingTinyEncoder 才能把同一批响应编码到一个缓冲区中。
+         *
          * addListener是非阻塞的，异步执行。它会把特定的 ChannelFutureListener 添加到 ChannelFuture 中，然后 I/O 线程会在 I/O
          * 操作相关的 future 完成时，通知监听器。
          */
-        ctx.writeAndFlush(response).addListener((ChannelFutureListener) channelFuture -> System.out.println("接口响应:" + request.getRequestId())
+        ctx.write(response).addListener((ChannelFutureListener) channelFuture -> System.out.println("接口响应:" + request.getRequestId())
         );
 
 
@@ -56,4 +59,10 @@ public class ServerHandler extends SimpleChannelInboundHandler<Request> {
         //ByteBuf responseByteBuf = Unpooled.copiedBuffer(UUID.randomUUID().toString() + " ", Charset.forName("utf-8"));
         //ctx.writeAndFlush(responseByteBuf);
     }
+
+    @Override
+    public void channelReadComplete(ChannelHandlerContext ctx) throws Exception {
+        ctx.flush();
+        ctx.fireChannelReadComplete();
+    }
 }
\ No newline at end of file
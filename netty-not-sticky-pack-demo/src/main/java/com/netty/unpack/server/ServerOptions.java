@@ -0,0 +1,38 @@
+package com.netty.unpack.server;
+
+import com.netty.unpack.protocol.BodyFormat;
+import com.netty.unpack.protocol.TinyProtocol;
+import io.netty.channel.WriteBufferWaterMark;
+import lombok.Data;
+
+/**
+ * {@link Server} 的可选配置，默认值与不带任何启动参数时相同
+ */
+@Data
+public class ServerOptions {
+
+    /**
+     * 为 true 时开启 flush 合并
+     */
+    private boolean consolidateFlush;
+
+    /**
+     * 为 true 时使用 BatchingTinyEncoder，把两次 flush 之间的响应编码到同一个缓冲区中
+     */
+    private boolean batchEncode;
+
+    /**
+     * 响应的消息体达到多少字节时压缩，TinyProtocol.NO_COMPRESSION 表示不压缩
+     */
+    private int compressThreshold = TinyProtocol.NO_COMPRESSION;
+
+    /**
+     * 响应的序列化方式
+     */
+    private BodyFormat format = BodyFormat.FST;
+
+    /**
+     * 出站缓冲区的高低水位，超过高水位时暂停读取，降到低水位以下后恢复
+     */
+    private WriteBufferWaterMark waterMark = WriteBufferWaterMark.DEFAULT;
+}
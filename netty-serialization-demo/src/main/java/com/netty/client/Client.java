@@ -10,6 +10,9 @@ import com.netty.fst.protocol.TinyDecoder;
 import com.netty.fst.protocol.TinyEncoder;
 import com.netty.protobuf.DataInfo;
 import com.netty.protobuf.StudentPOJO;
+import com.netty.protobuf.codec.ProtobufFrameDecoder;
+import com.netty.protobuf.codec.ProtobufFrameEncoder;
+import com.netty.protocol.Protocol;
 import io.netty.bootstrap.Bootstrap;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelInitializer;
@@ -17,8 +20,6 @@ import io.netty.channel.EventLoopGroup;
 import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.SocketChannel;
 import io.netty.channel.socket.nio.NioSocketChannel;
-import io.netty.handler.codec.protobuf.ProtobufDecoder;
-import io.netty.handler.codec.protobuf.ProtobufEncoder;
 
 import java.net.InetSocketAddress;
 
@@ -26,16 +27,28 @@ public class Client {
     private final String host;
     private final int port;
 
+    /**
+     * 使用的协议，连接建立后先发送它的标记
+     */
+    private final Protocol protocol;
+
     public Client(String host, int port) {
+        this(host, port, Protocol.FST);
+    }
+
+    public Client(String host, int port, Protocol protocol) {
         this.host = host;
         this.port = port;
+        this.protocol = protocol;
     }
 
     public static void main(String[] args) throws Exception {
         final String host = "127.0.0.1";
         final int port = 8081;
 
-        new Client(host, port).start();
+        // 参数为 fst、student 或 data，默认 fst
+        Protocol protocol = args.length > 0 ? Protocol.valueOf(args[0].toUpperCase()) : Protocol.FST;
+        new Client(host, port, protocol).start();
     }
 
     public void start() throws Exception {
@@ -53,22 +66,31 @@ public class Client {
                         public void initChannel(SocketChannel ch)
                                 throws Exception {
 
-                            ch.pipeline()
-                                    // 添加编解码. 发送自定义的类型, 而Handler的方法接收的msg参数的实际类型也是相应的自定义类了
-                                    .addLast(new TinyEncoder(Request.class))
-                                    .addLast(new TinyDecoder(Response.class))
-                                    .addLast(new ClientHandler());
-
-                            // 在 pipeline 中加入 ProtoBufEncoder
-                            ch.pipeline()
-                                    .addLast("encoder", new ProtobufEncoder())
-                                    .addLast("decoder", new ProtobufDecoder(StudentPOJO.Student.getDefaultInstance()))
-                                    .addLast(new ProtoSClientHandler());
-
-                            ch.pipeline()
-                                    .addLast("encoder", new ProtobufEncoder())
-                                    .addLast("decoder", new ProtobufDecoder(DataInfo.DMessage.getDefaultInstance()))
-                                    .addLast(new ProtoDClientHandler());
+                            ch.pipeline().addLast(new ProtocolTagSender(protocol));
+                            switch (protocol) {
+                                case FST:
+                                    ch.pipeline()
+                                            // 添加编解码. 发送自定义的类型, 而Handler的方法接收的msg参数的实际类型也是相应的自定义类了
+                                            .addLast(new TinyEncoder(Request.class))
+                                            .addLast(new TinyDecoder(Response.class))
+                                            .addLast(new ClientHandler());
+                                    break;
+                                case STUDENT:
+                                    // 在 pipeline 中加入带分包的 protobuf 编解码器
+                                    ch.pipeline()
+                                            .addLast(new ProtobufFrameEncoder())
+                                            .addLast(new ProtobufFrameDecoder<>(StudentPOJO.Student.getDefaultInstance()))
+                                            .addLast(new ProtoSClientHandler());
+                                    break;
+                                case DATA:
+                                    ch.pipeline()
+                                            .addLast(new ProtobufFrameEncoder())
+                                            .addLast(new ProtobufFrameDecoder<>(DataInfo.DMessage.getDefaultInstance()))
+                                            .addLast(new ProtoDClientHandler());
+                                    break;
+                                default:
+                                    throw new IllegalStateException("未处理的协议: " + protocol);
+                            }
                         }
                     });
 
@@ -2,10 +2,8 @@ package com.netty.client;
 
 import com.netty.protobuf.DataInfo;
 import com.netty.protobuf.StudentPOJO;
-import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundHandlerAdapter;
-import io.netty.util.CharsetUtil;
 
 import java.util.Random;
 
@@ -61,16 +59,15 @@ public class ProtoDClientHandler extends ChannelInboundHandlerAdapter {
 
          //读取从客户端发送的DataMasterPojo.DataMaster
         DataInfo.DMessage message = (DataInfo.DMessage)msg;
-        DataInfo.DMessage.DataType dataType = message.getDataType();
 
-        if(dataType == DataInfo.DMessage.DataType.DataMasterType) {
+        // 按 oneof 中实际设置的消息判断，dataType 可能与它不一致
+        if(message.hasDataMaster()) {
 
             DataInfo.DataMaster DataMaster = message.getDataMaster();
             System.out.println("学生id=" + DataMaster.getId() + " 学生名字=" + DataMaster.getName());
+        } else {
+            System.out.println("服务器回复的消息:" + message);
         }
-
-        ByteBuf buf = (ByteBuf) msg;
-        System.out.println("服务器回复的消息:" + buf.toString(CharsetUtil.UTF_8));
         System.out.println("服务器的地址： "+ ctx.channel().remoteAddress());
     }
 
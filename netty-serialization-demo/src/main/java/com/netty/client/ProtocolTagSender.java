@@ -0,0 +1,26 @@
+package com.netty.client;
+
+import com.netty.protocol.Protocol;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+
+/**
+ * 连接建立后先写出 1 个字节的协议标记，再让后面的 handler 发送业务消息，然后把自己从 pipeline 中移除。
+ * 标记只 write 不 flush，和第一个业务消息一起发出。需要放在 pipeline 的最前面。
+ */
+public class ProtocolTagSender extends ChannelInboundHandlerAdapter {
+
+    private final Protocol protocol;
+
+    public ProtocolTagSender(Protocol protocol) {
+        this.protocol = protocol;
+    }
+
+    @Override
+    public void channelActive(ChannelHandlerContext ctx) throws Exception {
+        ctx.write(Unpooled.wrappedBuffer(new byte[]{protocol.tag()}));
+        ctx.fireChannelActive();
+        ctx.pipeline().remove(this);
+    }
+}
@@ -4,6 +4,9 @@
  */
 package com.netty.fst.codec;
 
+import com.netty.fst.model.User;
+import com.netty.fst.protocol.Request;
+import com.netty.fst.protocol.Response;
 import org.nustaq.serialization.FSTConfiguration;
 
 /**
@@ -22,7 +25,15 @@ import org.nustaq.serialization.FSTConfiguration;
  */
 public class FstSerializer {
 
-    private static FSTConfiguration conf = FSTConfiguration.createDefaultConfiguration();
+    /**
+     * 每个线程一个 FSTConfiguration。Request、Response、User 是传输最多的类，注册后码流中用编号代替类名，
+     * 客户端和服务端使用的是同一个类，注册顺序天然一致。
+     */
+    private static final ThreadLocal<FSTConfiguration> CONF = ThreadLocal.withInitial(() -> {
+        FSTConfiguration conf = FSTConfiguration.createDefaultConfiguration();
+        conf.registerClass(Request.class, Response.class, User.class);
+        return conf;
+    });
 
     /**
      * 反序列化
@@ -33,7 +44,7 @@ public class FstSerializer {
      * @return
      */
     public static <T> T deserialize(byte[] data, Class<T> clazz) {
-        return (T) conf.asObject(data);
+        return (T) CONF.get().asObject(data);
     }
 
     /**
@@ -44,6 +55,6 @@ public class FstSerializer {
      * @return
      */
     public static <T> byte[] serialize(T obj) {
-        return conf.asByteArray(obj);
+        return CONF.get().asByteArray(obj);
     }
 }
\ No newline at end of file
@@ -1,11 +1,8 @@
 package com.netty.fst.protocol;
 
 import com.netty.fst.codec.FstSerializer;
+import com.netty.protocol.Varint32FrameDecoder;
 import io.netty.buffer.ByteBuf;
-import io.netty.channel.ChannelHandlerContext;
-import io.netty.handler.codec.ByteToMessageDecoder;
-
-import java.util.List;
 
 /**
  * Netty 编解码器：
@@ -15,37 +12,33 @@ import java.util.List;
  *
  * 解码器-ByteToMessageDecoder：由于不可能知道远程节点是否会一次性发送一个完整的信息，tcp有可能出现粘包拆包的问题，这个类会对入
  * 站数据进行缓冲，直到它准备好被处理。
+ *
+ * 帧格式：varint32 表示的消息体长度（与 ProtobufVarint32LengthFieldPrepender 相同，小于 128 字节的消息只占 1 个字节），
+ * 后面是 FST 序列化后的消息体，见 {@link TinyEncoder}。分包由 {@link Varint32FrameDecoder} 完成，收齐一个完整的消息体之后才反序列化，
+ * 一次读到多个消息（粘包）时逐个解出，只读到半个消息（拆包）时留在累积缓冲区中等下次数据到达。
  */
-public class TinyDecoder extends ByteToMessageDecoder {
+public class TinyDecoder extends Varint32FrameDecoder {
 
-    private Class<?> genericClass;
+    private final Class<?> genericClass;
 
     public TinyDecoder(Class<?> genericClass) {
-        this.genericClass = genericClass;
+        this(genericClass, DEFAULT_MAX_FRAME_LENGTH);
     }
 
     /**
-     * decode 方法会根据接收的数据，被调用多次, 直到确定没有新的元素被添加到 list，或者是 ByteBuf 没有更多的可读字节为止。
-     * 如果 list out 不为空，就会将 list 的内容传递给下一个 channelinboundhandler 处理, 该处理器的方法也会被调用多次。
-     *
-     * @param ctx   上下文对象
-     * @param in    入站的 ByteBuf
-     * @param out   List 集合，将解码后的数据传给下一个handler
-     * @throws Exception
+     * @param genericClass   消息类型
+     * @param maxFrameLength 最大消息体长度，超过时读到长度就抛出 TooLongFrameException，并丢弃该消息
      */
-    @Override
-    public final void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) throws Exception {
-
-        int size = in.readableBytes();
-        byte[] data = new byte[size];
-        in.readBytes(data);
-        Object obj = FstSerializer.deserialize(data, genericClass);
-        out.add(obj);
+    public TinyDecoder(Class<?> genericClass, int maxFrameLength) {
+        super(maxFrameLength);
+        this.genericClass = genericClass;
+    }
 
-        //因为 long 是 8个字节, 需要判断有8个字节，才能读取一个long。int 是 4 个字节
-        //if(in.readableBytes() >= 8) {
-        //    out.add(in.readLong());
-        //}
+    @Override
+    protected Object decodeFrame(ByteBuf in, int index, int length) {
+        byte[] data = new byte[length];
+        in.getBytes(index, data);
+        return FstSerializer.deserialize(data, genericClass);
     }
 
 }
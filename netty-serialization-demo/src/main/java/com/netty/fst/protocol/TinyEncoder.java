@@ -1,6 +1,7 @@
 package com.netty.fst.protocol;
 
 import com.netty.fst.codec.FstSerializer;
+import com.netty.protocol.Varint32;
 import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelHandler;
 import io.netty.channel.ChannelHandlerContext;
@@ -44,6 +45,9 @@ public class TinyEncoder extends MessageToByteEncoder {
 
         if (genericClass.isInstance(in)) {
             byte[] data = FstSerializer.serialize(in);
+            // varint32 表示的长度 + 消息体，见 TinyDecoder
+            out.ensureWritable(Varint32.computeSize(data.length) + data.length);
+            Varint32.write(out, data.length);
             out.writeBytes(data);
         }
 
@@ -51,5 +55,4 @@ public class TinyEncoder extends MessageToByteEncoder {
         //System.out.println("msg=" + "long 值" + 1L);
         //out.writeLong(1L);
     }
-
 }
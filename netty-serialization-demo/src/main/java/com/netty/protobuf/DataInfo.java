@@ -2476,14 +2476,15 @@ public final class DataInfo {
       descriptor;
   static {
     String[] descriptorData = {
-      "\n\rDataMaster.proto\"\244\001\n\tDMessage\022&\n\tdata_ty" +
-      "pe\030\001 \001(\0162\023.DMessage.DataType\022\033\n\007DataMaster" +
-      "\030\002 \001(\0132\010.DataMasterH\000\022\031\n\006DataSlave\030\003 \001(\0132\007.Wor" +
-      "kerH\000\"+\n\010DataType\022\017\n\013DataMasterType\020\000\022\016\n\nWo" +
-      "rkerType\020\001B\n\n\010dataBody\"#\n\007DataMaster\022\n\n\002id\030" +
-      "\001 \001(\005\022\014\n\004name\030\002 \001(\t\"#\n\006DataSlave\022\014\n\004name\030\001 " +
-      "\001(\t\022\013\n\003age\030\002 \001(\005B(\n\030com.atguigu.netty.co" +
-      "dec2B\nDataInfoH\001b\006proto3"
+      "\n\016DataInfo.proto\"\264\001\n\010DMessage\022%\n\tdata_ty" +
+      "pe\030\001 \001(\0162\022.DMessage.DataType\022!\n\nDataMast" +
+      "er\030\002 \001(\0132\013.DataMasterH\000\022\037\n\tDataSlave\030\003 \001" +
+      "(\0132\n.DataSlaveH\000\"1\n\010DataType\022\022\n\016DataMast" +
+      "erType\020\000\022\021\n\rDataSlaveType\020\001B\n\n\010dataBody\"" +
+      "&\n\nDataMaster\022\n\n\002id\030\001 \001(\005\022\014\n\004name\030\002 \001(\t\"" +
+      "&\n\tDataSlave\022\014\n\004name\030\001 \001(\t\022\013\n\003age\030\002 \001(\005B" +
+      " \n\022com.netty.protobufB\010DataInfoH\001b\006proto" +
+      "3"
     };
     com.google.protobuf.Descriptors.FileDescriptor.InternalDescriptorAssigner assigner =
         new com.google.protobuf.Descriptors.FileDescriptor.    InternalDescriptorAssigner() {
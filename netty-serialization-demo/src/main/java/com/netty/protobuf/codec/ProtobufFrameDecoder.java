@@ -0,0 +1,48 @@
+package com.netty.protobuf.codec;
+
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.MessageLite;
+import com.google.protobuf.Parser;
+import com.netty.protocol.Varint32FrameDecoder;
+import io.netty.buffer.ByteBuf;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * 带分包的 protobuf 解码器，代替 ProtobufVarint32FrameDecoder + ProtobufDecoder。
+ * 帧格式与 ProtobufVarint32LengthFieldPrepender 相同：varint32 表示的消息长度，后面是消息本身，见 {@link ProtobufFrameEncoder}。
+ *
+ * 收齐一个完整的消息后，通过 ByteBuf 的 NIO 视图（nioBuffer / nioBuffers，不拷贝数据）创建 CodedInputStream 直接解析，
+ * 不像 ProtobufDecoder 那样在 ByteBuf 不是堆内存时先拷贝出一个 byte[]。
+ *
+ * @param <T> 消息类型
+ */
+public class ProtobufFrameDecoder<T extends MessageLite> extends Varint32FrameDecoder {
+
+    private final Parser<T> parser;
+
+    public ProtobufFrameDecoder(T prototype) {
+        this(prototype, DEFAULT_MAX_FRAME_LENGTH);
+    }
+
+    /**
+     * @param prototype      消息类型的默认实例，例如 DataInfo.DMessage.getDefaultInstance()
+     * @param maxFrameLength 最大消息长度，超过时读到长度就抛出 TooLongFrameException，并丢弃该消息
+     */
+    @SuppressWarnings("unchecked")
+    public ProtobufFrameDecoder(T prototype, int maxFrameLength) {
+        super(maxFrameLength);
+        this.parser = (Parser<T>) prototype.getParserForType();
+    }
+
+    @Override
+    protected Object decodeFrame(ByteBuf in, int index, int length) throws Exception {
+
+        // 累积缓冲区是 CompositeByteBuf 时可能由多段内存组成
+        CodedInputStream input = in.nioBufferCount() == 1
+                ? CodedInputStream.newInstance(in.nioBuffer(index, length))
+                : CodedInputStream.newInstance(Arrays.<ByteBuffer>asList(in.nioBuffers(index, length)));
+        return parser.parseFrom(input);
+    }
+}
@@ -0,0 +1,40 @@
+package com.netty.protobuf.codec;
+
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.MessageLite;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.MessageToByteEncoder;
+
+import java.nio.ByteBuffer;
+
+/**
+ * 带分包的 protobuf 编码器，代替 ProtobufVarint32LengthFieldPrepender + ProtobufEncoder。
+ * 先用 getSerializedSize() 算出消息长度（protobuf 会缓存这个结果，writeTo 时不再重复计算），
+ * 按 varint32 长度 + 消息的总大小从池中分配一个直接内存缓冲区，再用 CodedOutputStream 直接写入它的 NIO 视图：
+ * 没有中间的 byte[]，也不会因为容量不够而扩容。
+ */
+@ChannelHandler.Sharable
+public class ProtobufFrameEncoder extends MessageToByteEncoder<MessageLite> {
+
+    @Override
+    protected ByteBuf allocateBuffer(ChannelHandlerContext ctx, MessageLite msg, boolean preferDirect) {
+        int size = msg.getSerializedSize();
+        return ctx.alloc().directBuffer(CodedOutputStream.computeUInt32SizeNoTag(size) + size);
+    }
+
+    @Override
+    protected void encode(ChannelHandlerContext ctx, MessageLite msg, ByteBuf out) throws Exception {
+        int size = msg.getSerializedSize();
+        int frameLength = CodedOutputStream.computeUInt32SizeNoTag(size) + size;
+        out.ensureWritable(frameLength);
+
+        ByteBuffer buffer = out.nioBuffer(out.writerIndex(), frameLength);
+        CodedOutputStream output = CodedOutputStream.newInstance(buffer);
+        output.writeUInt32NoTag(size);
+        msg.writeTo(output);
+        output.flush();
+        out.writerIndex(out.writerIndex() + frameLength);
+    }
+}
@@ -0,0 +1,97 @@
+package com.netty.protobuf.dispatch;
+
+import com.netty.protobuf.DataInfo;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.util.concurrent.EventExecutorGroup;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * 按 oneof 类型（DataBodyCase）注册的 handler，交给 {@link DataBodyDispatcher} 分发。
+ * 注册完成后可以被多个 channel 的 dispatcher 共用，不要再修改。
+ *
+ * 每种消息可以指定自己的 EventExecutorGroup：处理慢的 DataSlave 放到单独的线程池中，不会占用 I/O 线程，
+ * 也不会让同一个连接上的 DataMaster 排在它后面等待。
+ *
+ * @param <M> 收到的消息类型，DataInfo.DMessage 见 {@link DataBodyHandlers}，
+ *            对象池中的 RecyclableDMessage 见 {@link com.netty.protobuf.recycle.RecyclableDataBodyHandlers}
+ * @param <H> 子类自己的类型，用于链式调用
+ */
+public abstract class AbstractDataBodyHandlers<M, H extends AbstractDataBodyHandlers<M, H>> {
+
+    private final Class<M> messageType;
+    private final Function<M, DataInfo.DMessage.DataBodyCase> bodyCaseOf;
+
+    private final Map<DataInfo.DMessage.DataBodyCase, Registration<M, ?>> registrations =
+            new EnumMap<>(DataInfo.DMessage.DataBodyCase.class);
+
+    /**
+     * @param messageType dispatcher 接收的消息类型
+     * @param bodyCaseOf  取出消息中 oneof 的类型
+     */
+    protected AbstractDataBodyHandlers(Class<M> messageType, Function<M, DataInfo.DMessage.DataBodyCase> bodyCaseOf) {
+        this.messageType = messageType;
+        this.bodyCaseOf = bodyCaseOf;
+    }
+
+    /**
+     * dataBody 没有设置时调用，handler 收到的是整个消息
+     */
+    public H onNotSet(DataBodyHandler<? super M> handler) {
+        return register(DataInfo.DMessage.DataBodyCase.DATABODY_NOT_SET, Function.identity(), handler, null);
+    }
+
+    /**
+     * 注册一种消息的 handler，oneof 中新增了消息类型时用它注册，每种类型只能注册一次
+     *
+     * @param bodyCase  消息类型
+     * @param extractor 从收到的消息中取出该类型的消息，例如 DataInfo.DMessage::getDataMaster
+     * @param group     调用 handler 的线程池，为 null 时在 I/O 线程中调用
+     */
+    @SuppressWarnings("unchecked")
+    public <T> H register(DataInfo.DMessage.DataBodyCase bodyCase,
+                          Function<M, T> extractor,
+                          DataBodyHandler<? super T> handler,
+                          EventExecutorGroup group) {
+        if (registrations.containsKey(bodyCase)) {
+            throw new IllegalStateException(bodyCase + " 已经注册了 handler");
+        }
+        registrations.put(bodyCase, new Registration<>(extractor, handler, group));
+        return (H) this;
+    }
+
+    Class<M> messageType() {
+        return messageType;
+    }
+
+    DataInfo.DMessage.DataBodyCase bodyCaseOf(M message) {
+        return bodyCaseOf.apply(message);
+    }
+
+    Registration<M, ?> get(DataInfo.DMessage.DataBodyCase bodyCase) {
+        return registrations.get(bodyCase);
+    }
+
+    static final class Registration<M, T> {
+
+        private final Function<M, T> extractor;
+        private final DataBodyHandler<? super T> handler;
+        private final EventExecutorGroup group;
+
+        Registration(Function<M, T> extractor, DataBodyHandler<? super T> handler, EventExecutorGroup group) {
+            this.extractor = extractor;
+            this.handler = handler;
+            this.group = group;
+        }
+
+        EventExecutorGroup group() {
+            return group;
+        }
+
+        void invoke(ChannelHandlerContext ctx, M message) throws Exception {
+            handler.handle(ctx, extractor.apply(message));
+        }
+    }
+}
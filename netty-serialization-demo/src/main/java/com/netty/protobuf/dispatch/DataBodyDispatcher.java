@@ -0,0 +1,135 @@
+package com.netty.protobuf.dispatch;
+
+import com.netty.protobuf.DataInfo;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.util.ReferenceCountUtil;
+import io.netty.util.concurrent.EventExecutor;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 按消息中 oneof 的类型（DataBodyCase）把消息分发给 {@link AbstractDataBodyHandlers} 中注册的 handler，代替对 dataType 的 if/else 判断。
+ * dataType 只是发送方自己填写的标记，可能与 oneof 中实际设置的消息不一致，oneof 的类型才是准确的。
+ *
+ * 每个 channel 使用一个实例（不是 @Sharable）：注册时指定了 EventExecutorGroup 的消息类型，这个 channel 第一次收到
+ * 该类型的消息时从线程池中选定一个线程，之后一直使用它，所以同一个连接上同一种消息按收到的顺序处理，
+ * 不同类型的消息之间互不等待。在线程池中抛出的异常通过 pipeline 交给 exceptionCaught。
+ *
+ * 消息是引用计数对象（RecyclableDMessage）时，交给线程池之前先 retain，handler 执行完后 release；
+ * 在 I/O 线程中处理的消息由 SimpleChannelInboundHandler 在 channelRead0 返回后 release。
+ *
+ * 线程池的任务队列没有上限，客户端发得比 handler 处理得快时消息会一直堆积。所以每个 channel 交给线程池还没处理完的消息
+ * 达到 maxInFlight 时关闭 autoRead，不再从 socket 读取，客户端的发送会被 TCP 窗口挡住，降到一半时再打开。
+ * 已经读到的数据仍会解码并分发，所以最多还会多出一次读取（默认最多 64KB）中的消息。
+ *
+ * @param <M> 收到的消息类型
+ */
+public class DataBodyDispatcher<M> extends SimpleChannelInboundHandler<M> {
+
+    public static final int DEFAULT_MAX_IN_FLIGHT = 1024;
+
+    private final AbstractDataBodyHandlers<M, ?> handlers;
+    private final int maxInFlight;
+    private final int resumeInFlight;
+
+    /**
+     * 交给线程池还没处理完的消息数，在 I/O 线程中增加，在线程池中减少
+     */
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    /**
+     * 是否因为 inFlight 过多关闭了 autoRead，只在 I/O 线程中访问
+     */
+    private boolean readPaused;
+
+    /**
+     * 这个 channel 的每种消息选定的线程
+     */
+    private final Map<DataInfo.DMessage.DataBodyCase, EventExecutor> executors =
+            new EnumMap<>(DataInfo.DMessage.DataBodyCase.class);
+
+    public DataBodyDispatcher(AbstractDataBodyHandlers<M, ?> handlers) {
+        this(handlers, DEFAULT_MAX_IN_FLIGHT);
+    }
+
+    /**
+     * @param maxInFlight 交给线程池还没处理完的消息达到多少时暂停读取
+     */
+    public DataBodyDispatcher(AbstractDataBodyHandlers<M, ?> handlers, int maxInFlight) {
+        super(handlers.messageType());
+        if (maxInFlight <= 0) {
+            throw new IllegalArgumentException("maxInFlight 必须大于 0: " + maxInFlight);
+        }
+        this.handlers = handlers;
+        this.maxInFlight = maxInFlight;
+        this.resumeInFlight = maxInFlight / 2;
+    }
+
+    @Override
+    protected void channelRead0(ChannelHandlerContext ctx, M msg) throws Exception {
+        DataInfo.DMessage.DataBodyCase bodyCase = handlers.bodyCaseOf(msg);
+        AbstractDataBodyHandlers.Registration<M, ?> registration = handlers.get(bodyCase);
+        if (registration == null) {
+            unhandled(ctx, msg);
+            return;
+        }
+        if (registration.group() == null) {
+            registration.invoke(ctx, msg);
+            return;
+        }
+
+        EventExecutor executor = executors.get(bodyCase);
+        if (executor == null) {
+            executor = registration.group().next();
+            executors.put(bodyCase, executor);
+        }
+        ReferenceCountUtil.retain(msg);
+        int count = inFlight.incrementAndGet();
+        try {
+            executor.execute(() -> {
+                try {
+                    registration.invoke(ctx, msg);
+                } catch (Throwable cause) {
+                    ctx.pipeline().fireExceptionCaught(cause);
+                } finally {
+                    ReferenceCountUtil.release(msg);
+                    completed(ctx);
+                }
+            });
+        } catch (RuntimeException e) {
+            // 线程池已经关闭，任务不会执行
+            ReferenceCountUtil.release(msg);
+            inFlight.decrementAndGet();
+            throw e;
+        }
+
+        if (count >= maxInFlight && !readPaused) {
+            readPaused = true;
+            ctx.channel().config().setAutoRead(false);
+        }
+    }
+
+    /**
+     * 在线程池中调用。每次减少 1，从 maxInFlight 降下来时一定会经过 resumeInFlight，只在这时回到 I/O 线程检查是否恢复读取
+     */
+    private void completed(ChannelHandlerContext ctx) {
+        if (inFlight.decrementAndGet() == resumeInFlight) {
+            ctx.executor().execute(() -> {
+                if (readPaused && inFlight.get() <= resumeInFlight) {
+                    readPaused = false;
+                    ctx.channel().config().setAutoRead(true);
+                }
+            });
+        }
+    }
+
+    /**
+     * 收到没有注册 handler 的消息类型时调用，默认只打印一行日志
+     */
+    protected void unhandled(ChannelHandlerContext ctx, M msg) throws Exception {
+        System.out.println("没有处理 " + handlers.bodyCaseOf(msg) + " 的 handler，丢弃来自 " + ctx.channel().remoteAddress() + " 的消息");
+    }
+}
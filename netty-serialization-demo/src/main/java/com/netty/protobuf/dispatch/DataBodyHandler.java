@@ -0,0 +1,17 @@
+package com.netty.protobuf.dispatch;
+
+import io.netty.channel.ChannelHandlerContext;
+
+/**
+ * 处理 DMessage 的 oneof dataBody 中某一种消息，注册到 {@link DataBodyHandlers}
+ *
+ * @param <T> 消息类型，例如 DataInfo.DataMaster
+ */
+@FunctionalInterface
+public interface DataBodyHandler<T> {
+
+    /**
+     * 注册时指定了 EventExecutorGroup 的 handler 在该线程池中调用，否则在 channel 的 I/O 线程中调用
+     */
+    void handle(ChannelHandlerContext ctx, T body) throws Exception;
+}
@@ -0,0 +1,30 @@
+package com.netty.protobuf.dispatch;
+
+import com.netty.protobuf.DataInfo;
+import io.netty.util.concurrent.EventExecutorGroup;
+
+/**
+ * DataInfo.DMessage 的 handler 注册表，见 {@link AbstractDataBodyHandlers}
+ */
+public final class DataBodyHandlers extends AbstractDataBodyHandlers<DataInfo.DMessage, DataBodyHandlers> {
+
+    public DataBodyHandlers() {
+        super(DataInfo.DMessage.class, DataInfo.DMessage::getDataBodyCase);
+    }
+
+    public DataBodyHandlers onDataMaster(DataBodyHandler<DataInfo.DataMaster> handler) {
+        return onDataMaster(handler, null);
+    }
+
+    public DataBodyHandlers onDataMaster(DataBodyHandler<DataInfo.DataMaster> handler, EventExecutorGroup group) {
+        return register(DataInfo.DMessage.DataBodyCase.DataMaster, DataInfo.DMessage::getDataMaster, handler, group);
+    }
+
+    public DataBodyHandlers onDataSlave(DataBodyHandler<DataInfo.DataSlave> handler) {
+        return onDataSlave(handler, null);
+    }
+
+    public DataBodyHandlers onDataSlave(DataBodyHandler<DataInfo.DataSlave> handler, EventExecutorGroup group) {
+        return register(DataInfo.DMessage.DataBodyCase.DataSlave, DataInfo.DMessage::getDataSlave, handler, group);
+    }
+}
@@ -0,0 +1,69 @@
+package com.netty.protobuf.recycle;
+
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.netty.protobuf.DataInfo;
+import io.netty.buffer.ByteBuf;
+
+/**
+ * DataInfo.DataMaster 的可变版本，属于某个 {@link RecyclableDMessage}，随它一起回收，不能在它 release 之后继续使用
+ */
+public final class MutableDataMaster {
+
+    private int id;
+    private final Utf8Field name = new Utf8Field();
+
+    MutableDataMaster() {
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * 第一次调用时才从 UTF-8 字节创建 String，只关心 id 的 handler 不会产生这个对象
+     */
+    public String getName() {
+        return name.get();
+    }
+
+    /**
+     * @return name 的 UTF-8 字节数
+     */
+    public int getNameLength() {
+        return name.length();
+    }
+
+    /**
+     * 转换成不可变的 DataMaster，用于需要在 release 之后继续持有数据的场景
+     */
+    public DataInfo.DataMaster toMessage() {
+        return DataInfo.DataMaster.newBuilder().setId(id).setName(getName()).build();
+    }
+
+    void mergeFrom(ByteBuf in, int end) throws InvalidProtocolBufferException {
+        int tag;
+        while ((tag = WireReader.readTag(in, end)) != 0) {
+            switch (tag) {
+                case 8:
+                    id = WireReader.readInt32(in, end);
+                    break;
+                case 18:
+                    name.read(in, WireReader.readLength(in, end));
+                    break;
+                default:
+                    WireReader.skipField(in, tag, end);
+                    break;
+            }
+        }
+    }
+
+    void clear() {
+        id = 0;
+        name.clear();
+    }
+
+    @Override
+    public String toString() {
+        return "MutableDataMaster{id=" + id + ", name=" + getName() + "}";
+    }
+}
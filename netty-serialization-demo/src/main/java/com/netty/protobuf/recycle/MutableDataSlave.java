@@ -0,0 +1,69 @@
+package com.netty.protobuf.recycle;
+
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.netty.protobuf.DataInfo;
+import io.netty.buffer.ByteBuf;
+
+/**
+ * DataInfo.DataSlave 的可变版本，属于某个 {@link RecyclableDMessage}，随它一起回收，不能在它 release 之后继续使用
+ */
+public final class MutableDataSlave {
+
+    private final Utf8Field name = new Utf8Field();
+    private int age;
+
+    MutableDataSlave() {
+    }
+
+    /**
+     * 第一次调用时才从 UTF-8 字节创建 String
+     */
+    public String getName() {
+        return name.get();
+    }
+
+    /**
+     * @return name 的 UTF-8 字节数
+     */
+    public int getNameLength() {
+        return name.length();
+    }
+
+    public int getAge() {
+        return age;
+    }
+
+    /**
+     * 转换成不可变的 DataSlave，用于需要在 release 之后继续持有数据的场景
+     */
+    public DataInfo.DataSlave toMessage() {
+        return DataInfo.DataSlave.newBuilder().setName(getName()).setAge(age).build();
+    }
+
+    void mergeFrom(ByteBuf in, int end) throws InvalidProtocolBufferException {
+        int tag;
+        while ((tag = WireReader.readTag(in, end)) != 0) {
+            switch (tag) {
+                case 10:
+                    name.read(in, WireReader.readLength(in, end));
+                    break;
+                case 16:
+                    age = WireReader.readInt32(in, end);
+                    break;
+                default:
+                    WireReader.skipField(in, tag, end);
+                    break;
+            }
+        }
+    }
+
+    void clear() {
+        name.clear();
+        age = 0;
+    }
+
+    @Override
+    public String toString() {
+        return "MutableDataSlave{name=" + getName() + ", age=" + age + "}";
+    }
+}
@@ -0,0 +1,157 @@
+package com.netty.protobuf.recycle;
+
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.netty.protobuf.DataInfo;
+import io.netty.buffer.ByteBuf;
+import io.netty.util.AbstractReferenceCounted;
+import io.netty.util.Recycler;
+
+/**
+ * DataInfo.DMessage 的可变版本，通过 Netty 的 Recycler 重复使用，由 {@link RecyclingDMessageDecoder} 解码得到。
+ *
+ * 它是一个引用计数对象：handler 用完之后调用 release()（SimpleChannelInboundHandler 会自动调用），引用计数为 0 时
+ * 清空字段并放回对象池，里面的 {@link MutableDataMaster} / {@link MutableDataSlave} 也一起回收，所以 release 之后
+ * 不能再访问它和从它取出的对象。需要交给其它线程处理时先 retain()，在那个线程中 release()；
+ * 在其它线程 release 的对象会回到创建它的线程的对象池。
+ */
+public final class RecyclableDMessage extends AbstractReferenceCounted {
+
+    private static final Recycler<RecyclableDMessage> RECYCLER = new Recycler<RecyclableDMessage>() {
+        @Override
+        protected RecyclableDMessage newObject(Handle<RecyclableDMessage> handle) {
+            return new RecyclableDMessage(handle);
+        }
+    };
+
+    private final Recycler.Handle<RecyclableDMessage> handle;
+
+    private int dataType;
+    private DataInfo.DMessage.DataBodyCase dataBodyCase = DataInfo.DMessage.DataBodyCase.DATABODY_NOT_SET;
+    private final MutableDataMaster dataMaster = new MutableDataMaster();
+    private final MutableDataSlave dataSlave = new MutableDataSlave();
+
+    private RecyclableDMessage(Recycler.Handle<RecyclableDMessage> handle) {
+        this.handle = handle;
+    }
+
+    /**
+     * 从对象池中取出一个字段都是默认值、引用计数为 1 的对象
+     */
+    public static RecyclableDMessage newInstance() {
+        RecyclableDMessage message = RECYCLER.get();
+        message.setRefCnt(1);
+        return message;
+    }
+
+    public int getDataTypeValue() {
+        return dataType;
+    }
+
+    /**
+     * 与生成的代码一致，不认识的编号返回 UNRECOGNIZED
+     */
+    public DataInfo.DMessage.DataType getDataType() {
+        DataInfo.DMessage.DataType result = DataInfo.DMessage.DataType.forNumber(dataType);
+        return result == null ? DataInfo.DMessage.DataType.UNRECOGNIZED : result;
+    }
+
+    public DataInfo.DMessage.DataBodyCase getDataBodyCase() {
+        return dataBodyCase;
+    }
+
+    public boolean hasDataMaster() {
+        return dataBodyCase == DataInfo.DMessage.DataBodyCase.DataMaster;
+    }
+
+    public boolean hasDataSlave() {
+        return dataBodyCase == DataInfo.DMessage.DataBodyCase.DataSlave;
+    }
+
+    /**
+     * @throws IllegalStateException oneof 中设置的不是 DataMaster
+     */
+    public MutableDataMaster getDataMaster() {
+        if (!hasDataMaster()) {
+            throw new IllegalStateException("dataBody 是 " + dataBodyCase + "，不是 DataMaster");
+        }
+        return dataMaster;
+    }
+
+    /**
+     * @throws IllegalStateException oneof 中设置的不是 DataSlave
+     */
+    public MutableDataSlave getDataSlave() {
+        if (!hasDataSlave()) {
+            throw new IllegalStateException("dataBody 是 " + dataBodyCase + "，不是 DataSlave");
+        }
+        return dataSlave;
+    }
+
+    /**
+     * 转换成不可变的 DMessage，用于需要在 release 之后继续持有数据的场景
+     */
+    public DataInfo.DMessage toMessage() {
+        DataInfo.DMessage.Builder builder = DataInfo.DMessage.newBuilder().setDataTypeValue(dataType);
+        if (hasDataMaster()) {
+            builder.setDataMaster(dataMaster.toMessage());
+        } else if (hasDataSlave()) {
+            builder.setDataSlave(dataSlave.toMessage());
+        }
+        return builder.build();
+    }
+
+    /**
+     * 从 readerIndex 开始解析到 end 为止的 DMessage 编码数据，与 DMessage.Builder.mergeFrom 的规则相同：
+     * oneof 中后出现的字段覆盖先出现的，不认识的字段跳过
+     */
+    void mergeFrom(ByteBuf in, int end) throws InvalidProtocolBufferException {
+        int tag;
+        int length;
+        while ((tag = WireReader.readTag(in, end)) != 0) {
+            switch (tag) {
+                case 8:
+                    dataType = WireReader.readInt32(in, end);
+                    break;
+                case 18:
+                    if (!hasDataMaster()) {
+                        dataMaster.clear();
+                        dataBodyCase = DataInfo.DMessage.DataBodyCase.DataMaster;
+                    }
+                    length = WireReader.readLength(in, end);
+                    dataMaster.mergeFrom(in, in.readerIndex() + length);
+                    break;
+                case 26:
+                    if (!hasDataSlave()) {
+                        dataSlave.clear();
+                        dataBodyCase = DataInfo.DMessage.DataBodyCase.DataSlave;
+                    }
+                    length = WireReader.readLength(in, end);
+                    dataSlave.mergeFrom(in, in.readerIndex() + length);
+                    break;
+                default:
+                    WireReader.skipField(in, tag, end);
+                    break;
+            }
+        }
+    }
+
+    @Override
+    public RecyclableDMessage touch(Object hint) {
+        return this;
+    }
+
+    @Override
+    protected void deallocate() {
+        dataType = 0;
+        dataBodyCase = DataInfo.DMessage.DataBodyCase.DATABODY_NOT_SET;
+        dataMaster.clear();
+        dataSlave.clear();
+        handle.recycle(this);
+    }
+
+    @Override
+    public String toString() {
+        Object body = hasDataMaster() ? dataMaster : hasDataSlave() ? dataSlave : null;
+        return "RecyclableDMessage{dataType=" + getDataType() + ", dataBody=" + body + "}";
+    }
+}
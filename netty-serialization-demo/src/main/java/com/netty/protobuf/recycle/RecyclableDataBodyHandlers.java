@@ -0,0 +1,35 @@
+package com.netty.protobuf.recycle;
+
+import com.netty.protobuf.DataInfo;
+import com.netty.protobuf.dispatch.AbstractDataBodyHandlers;
+import com.netty.protobuf.dispatch.DataBodyHandler;
+import io.netty.util.concurrent.EventExecutorGroup;
+
+/**
+ * RecyclableDMessage 的 handler 注册表，用法与 {@link com.netty.protobuf.dispatch.DataBodyHandlers} 相同。
+ * handler 收到的 MutableDataMaster / MutableDataSlave 只在 handle 方法执行期间有效，之后消息会被放回对象池，
+ * 需要保存时用 toMessage() 转换成不可变的 protobuf 对象。交给线程池处理时 dispatcher 会先 retain 消息，handler 执行完再 release。
+ */
+public final class RecyclableDataBodyHandlers
+        extends AbstractDataBodyHandlers<RecyclableDMessage, RecyclableDataBodyHandlers> {
+
+    public RecyclableDataBodyHandlers() {
+        super(RecyclableDMessage.class, RecyclableDMessage::getDataBodyCase);
+    }
+
+    public RecyclableDataBodyHandlers onDataMaster(DataBodyHandler<MutableDataMaster> handler) {
+        return onDataMaster(handler, null);
+    }
+
+    public RecyclableDataBodyHandlers onDataMaster(DataBodyHandler<MutableDataMaster> handler, EventExecutorGroup group) {
+        return register(DataInfo.DMessage.DataBodyCase.DataMaster, RecyclableDMessage::getDataMaster, handler, group);
+    }
+
+    public RecyclableDataBodyHandlers onDataSlave(DataBodyHandler<MutableDataSlave> handler) {
+        return onDataSlave(handler, null);
+    }
+
+    public RecyclableDataBodyHandlers onDataSlave(DataBodyHandler<MutableDataSlave> handler, EventExecutorGroup group) {
+        return register(DataInfo.DMessage.DataBodyCase.DataSlave, RecyclableDMessage::getDataSlave, handler, group);
+    }
+}
@@ -0,0 +1,37 @@
+package com.netty.protobuf.recycle;
+
+import com.netty.protocol.Varint32FrameDecoder;
+import io.netty.buffer.ByteBuf;
+
+/**
+ * DataInfo.DMessage 的低分配解码器，帧格式与 {@link com.netty.protobuf.codec.ProtobufFrameDecoder} 相同，可以直接替换它。
+ *
+ * 不创建 CodedInputStream 和不可变的 protobuf 对象，直接从累积缓冲区把字段读进对象池中的 {@link RecyclableDMessage}，
+ * string 字段只拷贝字节，用到时才创建 String。后面的 handler 必须 release 收到的消息，否则对象回不到池中。
+ */
+public class RecyclingDMessageDecoder extends Varint32FrameDecoder {
+
+    public RecyclingDMessageDecoder() {
+        this(DEFAULT_MAX_FRAME_LENGTH);
+    }
+
+    public RecyclingDMessageDecoder(int maxFrameLength) {
+        super(maxFrameLength);
+    }
+
+    @Override
+    protected Object decodeFrame(ByteBuf in, int index, int length) throws Exception {
+        int end = index + length;
+        RecyclableDMessage message = RecyclableDMessage.newInstance();
+        in.readerIndex(index);
+        try {
+            message.mergeFrom(in, end);
+            return message;
+        } catch (Exception e) {
+            message.release();
+            throw e;
+        } finally {
+            in.readerIndex(end);
+        }
+    }
+}
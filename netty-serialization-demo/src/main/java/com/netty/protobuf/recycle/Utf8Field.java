@@ -0,0 +1,50 @@
+package com.netty.protobuf.recycle;
+
+import io.netty.buffer.ByteBuf;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 可重复使用的 string 字段：解析时只把 UTF-8 字节拷贝到复用的数组中，第一次调用 {@link #get()} 时才创建 String
+ */
+final class Utf8Field {
+
+    /**
+     * 超过这个大小的数组不随对象一起回收，避免一个很长的字符串让池中的对象一直占着大块内存
+     */
+    private static final int MAX_RETAINED_CAPACITY = 1024;
+
+    private static final byte[] EMPTY = new byte[0];
+
+    private byte[] bytes = EMPTY;
+    private int length;
+    private String value = "";
+
+    void read(ByteBuf in, int length) {
+        if (bytes.length < length) {
+            bytes = new byte[Math.max(length, Math.min(bytes.length * 2, MAX_RETAINED_CAPACITY))];
+        }
+        in.readBytes(bytes, 0, length);
+        this.length = length;
+        this.value = null;
+    }
+
+    String get() {
+        if (value == null) {
+            value = new String(bytes, 0, length, StandardCharsets.UTF_8);
+        }
+        return value;
+    }
+
+    int length() {
+        return length;
+    }
+
+    void clear() {
+        if (bytes.length > MAX_RETAINED_CAPACITY) {
+            bytes = EMPTY;
+        }
+        length = 0;
+        value = "";
+    }
+}
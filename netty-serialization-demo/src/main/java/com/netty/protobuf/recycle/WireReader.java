@@ -0,0 +1,95 @@
+package com.netty.protobuf.recycle;
+
+import com.google.protobuf.InvalidProtocolBufferException;
+import com.google.protobuf.WireFormat;
+import io.netty.buffer.ByteBuf;
+
+/**
+ * 直接从 ByteBuf 读取 protobuf 编码的数据，不创建 CodedInputStream。
+ * 从 readerIndex 开始读，end 是当前消息的结束位置，读到 end 之后的数据时抛出异常。
+ */
+final class WireReader {
+
+    private WireReader() {
+    }
+
+    /**
+     * @return 下一个字段的 tag，已经读到 end 时返回 0
+     */
+    static int readTag(ByteBuf in, int end) throws InvalidProtocolBufferException {
+        if (in.readerIndex() >= end) {
+            return 0;
+        }
+        int tag = readInt32(in, end);
+        if (WireFormat.getTagFieldNumber(tag) == 0) {
+            throw new InvalidProtocolBufferException("非法的 tag: " + tag);
+        }
+        return tag;
+    }
+
+    /**
+     * 读取 int32 / enum：负数按 10 个字节的 varint 编码，只取低 32 位
+     */
+    static int readInt32(ByteBuf in, int end) throws InvalidProtocolBufferException {
+        return (int) readVarint64(in, end);
+    }
+
+    static long readVarint64(ByteBuf in, int end) throws InvalidProtocolBufferException {
+        long result = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            if (in.readerIndex() >= end) {
+                throw truncated();
+            }
+            byte b = in.readByte();
+            result |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return result;
+            }
+        }
+        throw new InvalidProtocolBufferException("varint 超过了 10 个字节");
+    }
+
+    /**
+     * 读取 length-delimited 字段的长度，并检查没有超出当前消息
+     */
+    static int readLength(ByteBuf in, int end) throws InvalidProtocolBufferException {
+        int length = readInt32(in, end);
+        if (length < 0 || length > end - in.readerIndex()) {
+            throw truncated();
+        }
+        return length;
+    }
+
+    /**
+     * 跳过不认识的字段，例如对方使用了更新版本的 proto 文件
+     */
+    static void skipField(ByteBuf in, int tag, int end) throws InvalidProtocolBufferException {
+        switch (WireFormat.getTagWireType(tag)) {
+            case WireFormat.WIRETYPE_VARINT:
+                readVarint64(in, end);
+                break;
+            case WireFormat.WIRETYPE_FIXED64:
+                skipBytes(in, 8, end);
+                break;
+            case WireFormat.WIRETYPE_LENGTH_DELIMITED:
+                in.skipBytes(readLength(in, end));
+                break;
+            case WireFormat.WIRETYPE_FIXED32:
+                skipBytes(in, 4, end);
+                break;
+            default:
+                throw new InvalidProtocolBufferException("不支持的 wire type: " + WireFormat.getTagWireType(tag));
+        }
+    }
+
+    private static void skipBytes(ByteBuf in, int length, int end) throws InvalidProtocolBufferException {
+        if (length > end - in.readerIndex()) {
+            throw truncated();
+        }
+        in.skipBytes(length);
+    }
+
+    private static InvalidProtocolBufferException truncated() {
+        return new InvalidProtocolBufferException("消息不完整，字段超出了消息的长度");
+    }
+}
@@ -0,0 +1,45 @@
+package com.netty.protocol;
+
+/**
+ * 服务端在同一个端口上支持的协议。客户端建立连接后先发送 1 个字节的协议标记，服务端据此只安装对应的编解码器和 handler，
+ * 见 {@link com.netty.server.PortUnificationHandler}
+ */
+public enum Protocol {
+
+    /**
+     * FST 序列化的 Request / Response
+     */
+    FST('F'),
+
+    /**
+     * protobuf 的 StudentPOJO.Student
+     */
+    STUDENT('S'),
+
+    /**
+     * protobuf 的 DataInfo.DMessage
+     */
+    DATA('D');
+
+    private final byte tag;
+
+    Protocol(char tag) {
+        this.tag = (byte) tag;
+    }
+
+    public byte tag() {
+        return tag;
+    }
+
+    /**
+     * @return 标记对应的协议，不认识的标记返回 null
+     */
+    public static Protocol of(byte tag) {
+        for (Protocol protocol : values()) {
+            if (protocol.tag == tag) {
+                return protocol;
+            }
+        }
+        return null;
+    }
+}
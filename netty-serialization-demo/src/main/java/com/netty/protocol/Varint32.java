@@ -0,0 +1,40 @@
+package com.netty.protocol;
+
+import io.netty.buffer.ByteBuf;
+
+/**
+ * {@link Varint32FrameDecoder} 使用的 varint32 长度前缀：每个字节低 7 位存数据，最高位为 1 表示后面还有字节，
+ * 与 protobuf 的 writeUInt32NoTag 编码相同
+ */
+public final class Varint32 {
+
+    private Varint32() {
+    }
+
+    /**
+     * @return value 编码后的字节数，1 ~ 5
+     */
+    public static int computeSize(int value) {
+        if ((value & (~0 << 7)) == 0) {
+            return 1;
+        }
+        if ((value & (~0 << 14)) == 0) {
+            return 2;
+        }
+        if ((value & (~0 << 21)) == 0) {
+            return 3;
+        }
+        if ((value & (~0 << 28)) == 0) {
+            return 4;
+        }
+        return 5;
+    }
+
+    public static void write(ByteBuf out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+}
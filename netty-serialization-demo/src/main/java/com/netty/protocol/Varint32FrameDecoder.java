@@ -0,0 +1,96 @@
+package com.netty.protocol;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.ByteToMessageDecoder;
+import io.netty.handler.codec.CorruptedFrameException;
+import io.netty.handler.codec.TooLongFrameException;
+
+import java.util.List;
+
+/**
+ * varint32 长度前缀的分包解码器，帧格式与 ProtobufVarint32LengthFieldPrepender 相同。
+ * 只负责分包：收齐一个完整的消息后把它在累积缓冲区中的位置交给 {@link #decodeFrame}，由子类决定如何解析消息体，
+ * 见 {@link com.netty.protobuf.codec.ProtobufFrameDecoder}、{@link com.netty.fst.protocol.TinyDecoder}。
+ * 长度前缀用 {@link Varint32#write} 写出。
+ */
+public abstract class Varint32FrameDecoder extends ByteToMessageDecoder {
+
+    /**
+     * 默认的最大消息长度
+     */
+    public static final int DEFAULT_MAX_FRAME_LENGTH = 1024 * 1024;
+
+    private final int maxFrameLength;
+
+    /**
+     * 超长的消息还有多少字节没有丢弃
+     */
+    private long bytesToDiscard;
+
+    /**
+     * @param maxFrameLength 最大消息长度，超过时读到长度就抛出 TooLongFrameException，并丢弃该消息
+     */
+    protected Varint32FrameDecoder(int maxFrameLength) {
+        if (maxFrameLength <= 0) {
+            throw new IllegalArgumentException("maxFrameLength 必须大于 0: " + maxFrameLength);
+        }
+        this.maxFrameLength = maxFrameLength;
+    }
+
+    @Override
+    protected final void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) throws Exception {
+
+        // 正在丢弃一个超长的消息
+        if (bytesToDiscard > 0) {
+            int discard = (int) Math.min(bytesToDiscard, in.readableBytes());
+            in.skipBytes(discard);
+            bytesToDiscard -= discard;
+            return;
+        }
+
+        // 只查看长度，不移动 readerIndex，收齐整个消息之前不消费任何数据
+        int readerIndex = in.readerIndex();
+        int length = 0;
+        int headerLength = 0;
+        for (int i = 0; i < 5; i++) {
+            if (i >= in.readableBytes()) {
+                return;
+            }
+            byte b = in.getByte(readerIndex + i);
+            length |= (b & 0x7F) << (7 * i);
+            if (b >= 0) {
+                headerLength = i + 1;
+                break;
+            }
+        }
+        if (headerLength == 0 || length < 0) {
+            in.skipBytes(in.readableBytes());
+            throw new CorruptedFrameException("非法的消息长度");
+        }
+        if (length > maxFrameLength) {
+            in.skipBytes(headerLength);
+            int discard = Math.min(length, in.readableBytes());
+            in.skipBytes(discard);
+            bytesToDiscard = length - discard;
+            throw new TooLongFrameException("消息长度 " + length + " 超过了最大长度 " + maxFrameLength);
+        }
+
+        if (in.readableBytes() < headerLength + length) {
+            return;
+        }
+        int bodyIndex = readerIndex + headerLength;
+        in.readerIndex(bodyIndex + length);
+        out.add(decodeFrame(in, bodyIndex, length));
+    }
+
+    /**
+     * 解析一个完整的消息。调用时 readerIndex 已经移到了消息末尾，实现可以临时移动 readerIndex，但返回或抛出异常时
+     * 要把它恢复到消息末尾，并且不能修改 writerIndex
+     *
+     * @param in     累积缓冲区
+     * @param index  消息体在 in 中的起始位置
+     * @param length 消息体的字节数
+     */
+    protected abstract Object decodeFrame(ByteBuf in, int index, int length) throws Exception;
+}
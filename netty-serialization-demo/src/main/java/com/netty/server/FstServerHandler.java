@@ -18,7 +18,7 @@ public class FstServerHandler extends SimpleChannelInboundHandler<Request> {
 
         System.out.println("服务端接收到的消息 : " + request);
         Response response = new Response();
-        response.setRequestId(3L);
+        response.setRequestId(request.getRequestId());
         response.setError("success");
 
         User user = new User();
@@ -0,0 +1,86 @@
+package com.netty.server;
+
+import com.netty.fst.protocol.Request;
+import com.netty.fst.protocol.Response;
+import com.netty.fst.protocol.TinyDecoder;
+import com.netty.fst.protocol.TinyEncoder;
+import com.netty.protobuf.DataInfo;
+import com.netty.protobuf.StudentPOJO;
+import com.netty.protobuf.codec.ProtobufFrameDecoder;
+import com.netty.protobuf.codec.ProtobufFrameEncoder;
+import com.netty.protobuf.dispatch.DataBodyHandlers;
+import com.netty.protobuf.recycle.RecyclableDataBodyHandlers;
+import com.netty.protobuf.recycle.RecyclingDMessageDecoder;
+import com.netty.protocol.Protocol;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPipeline;
+import io.netty.handler.codec.ByteToMessageDecoder;
+
+import java.util.List;
+
+/**
+ * 端口统一：连接建立后读取客户端发来的第一个字节（协议标记，见 {@link Protocol}），只安装该协议的编解码器和 handler，
+ * 然后把自己从 pipeline 中移除，之后的每个消息只经过一套解码器。标记后面已经到达的数据会交给新安装的解码器。
+ * 不认识的标记直接关闭连接。
+ */
+public class PortUnificationHandler extends ByteToMessageDecoder {
+
+    private final DataBodyHandlers dataHandlers;
+    private final RecyclableDataBodyHandlers recyclableDataHandlers;
+
+    public PortUnificationHandler() {
+        this(ProtoDServerHandler.handlers(null), null);
+    }
+
+    /**
+     * @param dataHandlers           DataInfo 协议各类消息的 handler，见 {@link ProtoDServerHandler#handlers}
+     * @param recyclableDataHandlers 不为 null 时 DataInfo 协议使用 {@link RecyclingDMessageDecoder} 把消息解码到对象池中的可变对象，
+     *                               并交给这些 handler 处理，见 {@link RecyclingProtoDServerHandler#handlers}
+     */
+    public PortUnificationHandler(DataBodyHandlers dataHandlers, RecyclableDataBodyHandlers recyclableDataHandlers) {
+        this.dataHandlers = dataHandlers;
+        this.recyclableDataHandlers = recyclableDataHandlers;
+    }
+
+    @Override
+    protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) throws Exception {
+        if (!in.isReadable()) {
+            return;
+        }
+        byte tag = in.readByte();
+        Protocol protocol = Protocol.of(tag);
+        if (protocol == null) {
+            System.out.println("不支持的协议标记: " + tag + "，关闭连接 " + ctx.channel().remoteAddress());
+            in.skipBytes(in.readableBytes());
+            ctx.close();
+            return;
+        }
+
+        ChannelPipeline pipeline = ctx.pipeline();
+        switch (protocol) {
+            case FST:
+                pipeline.addLast(new TinyDecoder(Request.class), new TinyEncoder(Response.class), new FstServerHandler());
+                break;
+            case STUDENT:
+                pipeline.addLast(new ProtobufFrameDecoder<>(StudentPOJO.Student.getDefaultInstance()),
+                        new ProtobufFrameEncoder(), new ProtoSServerHandler());
+                break;
+            case DATA:
+                if (recyclableDataHandlers != null) {
+                    pipeline.addLast(new RecyclingDMessageDecoder(), new ProtobufFrameEncoder(),
+                            new RecyclingProtoDServerHandler(recyclableDataHandlers));
+                } else {
+                    pipeline.addLast(new ProtobufFrameDecoder<>(DataInfo.DMessage.getDefaultInstance()),
+                            new ProtobufFrameEncoder(), new ProtoDServerHandler(dataHandlers));
+                }
+                break;
+            default:
+                throw new IllegalStateException("未处理的协议: " + protocol);
+        }
+
+        // 连接早已建立，新安装的 handler 收不到 channelActive，这里补发一次
+        ctx.fireChannelActive();
+        pipeline.remove(this);
+    }
+}
@@ -1,61 +1,57 @@
 package com.netty.server;
 
 import com.netty.protobuf.DataInfo;
-import io.netty.buffer.Unpooled;
+import com.netty.protobuf.dispatch.DataBodyDispatcher;
+import com.netty.protobuf.dispatch.DataBodyHandlers;
 import io.netty.channel.ChannelHandlerContext;
-import io.netty.channel.SimpleChannelInboundHandler;
-import io.netty.util.CharsetUtil;
+import io.netty.util.concurrent.EventExecutorGroup;
 
-//public class NettyServerHandler extends ChannelInboundHandlerAdapter {
-public class ProtoDServerHandler extends SimpleChannelInboundHandler<DataInfo.DMessage> {
+/**
+ * DataInfo 协议的服务端 handler，按 oneof 中的消息类型分发给 {@link #handlers} 中注册的 handler
+ */
+public class ProtoDServerHandler extends DataBodyDispatcher<DataInfo.DMessage> {
 
-    @Override
-    public void channelActive(ChannelHandlerContext ctx) throws Exception {
-
-        // 生成一个 DataMaster 对象，并发送到客户端
-        DataInfo.DataMaster DataMaster = DataInfo.DataMaster.newBuilder().setId(2).setName("hyman2").build();
-        ctx.writeAndFlush(DataMaster);
+    public ProtoDServerHandler() {
+        this(handlers(null));
     }
 
-    @Override
-    public void channelRead0(ChannelHandlerContext ctx, DataInfo.DMessage msg) throws Exception {
-
-        //根据dataType 来显示不同的信息
-        DataInfo.DMessage.DataType dataType = msg.getDataType();
-        if(dataType == DataInfo.DMessage.DataType.DataMasterType) {
-
-            DataInfo.DataMaster DataMaster = msg.getDataMaster();
-            System.out.println("学生id=" + DataMaster.getId() + " 学生名字=" + DataMaster.getName());
-
-        } else if(dataType == DataInfo.DMessage.DataType.DataSlaveType) {
-
-            DataInfo.DataSlave DataSlave = msg.getDataSlave();
-            System.out.println("工人的名字=" + DataSlave.getName() + " 年龄=" + DataSlave.getAge());
+    /**
+     * @param handlers 通常由 {@link #handlers} 创建，可以被所有连接共用
+     */
+    public ProtoDServerHandler(DataBodyHandlers handlers) {
+        super(handlers);
+    }
 
-        } else {
-            System.out.println("传输的类型不正确");
-        }
+    /**
+     * DataMaster 在 I/O 线程中处理；DataSlave 在 slaveGroup 中处理，slaveGroup 为 null 时也在 I/O 线程中处理
+     */
+    public static DataBodyHandlers handlers(EventExecutorGroup slaveGroup) {
+        return new DataBodyHandlers()
+                .onDataMaster((ctx, dataMaster) ->
+                        System.out.println("学生id=" + dataMaster.getId() + " 学生名字=" + dataMaster.getName()))
+                .onDataSlave((ctx, dataSlave) ->
+                        System.out.println("工人的名字=" + dataSlave.getName() + " 年龄=" + dataSlave.getAge()), slaveGroup)
+                .onNotSet((ctx, message) -> System.out.println("传输的类型不正确"));
     }
 
+    @Override
+    public void channelActive(ChannelHandlerContext ctx) throws Exception {
 
-    //@Override
-    //public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
-    //
-    //    // 读取从客户端发送的DataMasterPojo.DataMaster
-    //    DataInfo.DMessage message = (DataInfo.DMessage)msg;
-    //    DataInfo.DMessage.DataType dataType = message.getDataType();
-    //
-    //    if(dataType == DataInfo.DMessage.DataType.DataMasterType) {
-    //
-    //        DataInfo.DataMaster DataMaster = message.getDataMaster();
-    //        System.out.println("学生id=" + DataMaster.getId() + " 学生名字=" + DataMaster.getName());
-    //    }
-    //}
+        // 生成一个 DataMaster 对象，包装成 DMessage 发送到客户端，客户端只能解码 DMessage
+        ctx.writeAndFlush(masterMessage(2, "hyman2"));
+    }
 
     @Override
     public void channelReadComplete(ChannelHandlerContext ctx) throws Exception {
 
-        ctx.writeAndFlush(Unpooled.copiedBuffer("hello, 客户端~(>^ω^<)喵1", CharsetUtil.UTF_8));
+        ctx.writeAndFlush(masterMessage(0, "hello, 客户端~(>^ω^<)喵1"));
+    }
+
+    static DataInfo.DMessage masterMessage(int id, String name) {
+        return DataInfo.DMessage.newBuilder()
+                .setDataType(DataInfo.DMessage.DataType.DataMasterType)
+                .setDataMaster(DataInfo.DataMaster.newBuilder().setId(id).setName(name).build())
+                .build();
     }
 
     @Override
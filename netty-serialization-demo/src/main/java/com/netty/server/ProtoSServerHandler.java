@@ -1,11 +1,9 @@
 package com.netty.server;
 
 import com.netty.protobuf.StudentPOJO;
-import io.netty.buffer.Unpooled;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundHandlerAdapter;
 import io.netty.channel.SimpleChannelInboundHandler;
-import io.netty.util.CharsetUtil;
 
 /**
  * Netty 自身提供了一些 codec（编解码器），其编码解码的机制和问题分析：
@@ -64,7 +62,8 @@ public class ProtoSServerHandler extends SimpleChannelInboundHandler<StudentPOJO
     @Override
     public void channelReadComplete(ChannelHandlerContext ctx) throws Exception {
 
-        ctx.writeAndFlush(Unpooled.copiedBuffer("hello, 客户端~(>^ω^<)喵1", CharsetUtil.UTF_8));
+        // 连接上的数据是分包后的 protobuf 消息，回复也必须是 Student，不能再直接写字符串
+        ctx.writeAndFlush(StudentPOJO.Student.newBuilder().setId(0).setName("hello, 客户端~(>^ω^<)喵1").build());
     }
 
     @Override
@@ -0,0 +1,54 @@
+package com.netty.server;
+
+import com.netty.protobuf.dispatch.DataBodyDispatcher;
+import com.netty.protobuf.recycle.RecyclableDMessage;
+import com.netty.protobuf.recycle.RecyclableDataBodyHandlers;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.util.concurrent.EventExecutorGroup;
+
+/**
+ * 与 {@link ProtoDServerHandler} 相同，接收的是 RecyclingDMessageDecoder 解码出的 {@link RecyclableDMessage}。
+ * 消息处理完后会被 release，放回对象池，所以 handler 不能把消息或其中的对象保存下来，
+ * 需要保存时用 toMessage() 转换成不可变的 protobuf 对象。
+ */
+public class RecyclingProtoDServerHandler extends DataBodyDispatcher<RecyclableDMessage> {
+
+    public RecyclingProtoDServerHandler() {
+        this(handlers(null));
+    }
+
+    /**
+     * @param handlers 通常由 {@link #handlers} 创建，可以被所有连接共用
+     */
+    public RecyclingProtoDServerHandler(RecyclableDataBodyHandlers handlers) {
+        super(handlers);
+    }
+
+    /**
+     * 与 {@link ProtoDServerHandler#handlers} 相同：DataMaster 在 I/O 线程中处理，DataSlave 在 slaveGroup 中处理
+     */
+    public static RecyclableDataBodyHandlers handlers(EventExecutorGroup slaveGroup) {
+        return new RecyclableDataBodyHandlers()
+                .onDataMaster((ctx, dataMaster) ->
+                        System.out.println("学生id=" + dataMaster.getId() + " 学生名字=" + dataMaster.getName()))
+                .onDataSlave((ctx, dataSlave) ->
+                        System.out.println("工人的名字=" + dataSlave.getName() + " 年龄=" + dataSlave.getAge()), slaveGroup)
+                .onNotSet((ctx, message) -> System.out.println("传输的类型不正确"));
+    }
+
+    @Override
+    public void channelActive(ChannelHandlerContext ctx) throws Exception {
+        ctx.writeAndFlush(ProtoDServerHandler.masterMessage(2, "hyman2"));
+    }
+
+    @Override
+    public void channelReadComplete(ChannelHandlerContext ctx) throws Exception {
+        ctx.writeAndFlush(ProtoDServerHandler.masterMessage(0, "hello, 客户端~(>^ω^<)喵1"));
+    }
+
+    @Override
+    public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) throws Exception {
+        cause.printStackTrace();
+        ctx.close();
+    }
+}
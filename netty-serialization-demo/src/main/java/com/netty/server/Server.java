@@ -4,12 +4,8 @@
  */
 package com.netty.server;
 
-import com.netty.fst.protocol.Request;
-import com.netty.fst.protocol.Response;
-import com.netty.fst.protocol.TinyDecoder;
-import com.netty.fst.protocol.TinyEncoder;
-import com.netty.protobuf.DataInfo;
-import com.netty.protobuf.StudentPOJO;
+import com.netty.protobuf.dispatch.DataBodyHandlers;
+import com.netty.protobuf.recycle.RecyclableDataBodyHandlers;
 import io.netty.bootstrap.ServerBootstrap;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelInitializer;
@@ -17,20 +13,34 @@ import io.netty.channel.ChannelOption;
 import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.SocketChannel;
 import io.netty.channel.socket.nio.NioServerSocketChannel;
-import io.netty.handler.codec.protobuf.ProtobufDecoder;
-import io.netty.handler.codec.protobuf.ProtobufEncoder;
+import io.netty.util.concurrent.DefaultEventExecutorGroup;
+
+import java.util.Arrays;
 
 public class Server {
 
     private final int port;
+    private final boolean recycleMessages;
 
     public Server(int port) {
+        this(port, false);
+    }
+
+    /**
+     * @param recycleMessages DataInfo 协议是否把消息解码到对象池中的可变对象，见 {@link PortUnificationHandler}
+     */
+    public Server(int port, boolean recycleMessages) {
         this.port = port;
+        this.recycleMessages = recycleMessages;
     }
 
+    /**
+     * 参数 --recycle：DataInfo 协议使用对象池中的可变对象接收消息
+     */
     public static void main(String[] args) throws Exception {
         int port = 8081;
-        new Server(port).start();
+        boolean recycleMessages = Arrays.asList(args).contains("--recycle");
+        new Server(port, recycleMessages).start();
     }
 
     public void start() throws Exception {
@@ -38,6 +48,11 @@ public class Server {
         NioEventLoopGroup bossGroup = new NioEventLoopGroup(1);
         NioEventLoopGroup workerGroup = new NioEventLoopGroup();
 
+        // DataSlave 的处理可能很慢，放到单独的线程池中，不占用 I/O 线程，也不会让 DataMaster 等待
+        DefaultEventExecutorGroup slaveGroup = new DefaultEventExecutorGroup(2);
+        DataBodyHandlers dataHandlers = ProtoDServerHandler.handlers(slaveGroup);
+        RecyclableDataBodyHandlers recyclableDataHandlers = recycleMessages ? RecyclingProtoDServerHandler.handlers(slaveGroup) : null;
+
         try {
             ServerBootstrap b = new ServerBootstrap();
 
@@ -49,22 +64,8 @@ public class Server {
                         @Override
                         public void initChannel(SocketChannel ch) {
 
-                            ch.pipeline()
-                                    // 添加编解码. 发送自定义的类型, 而Handler的方法接收的msg参数的实际类型也是相应的自定义类了
-                                    .addLast(new TinyDecoder(Request.class))
-                                    .addLast(new TinyEncoder(Response.class))
-                                    .addLast(new FstServerHandler());
-
-                            // 在 pipeline 中加入 ProtoBufEncoder
-                            ch.pipeline()
-                                    .addLast("decoder", new ProtobufDecoder(StudentPOJO.Student.getDefaultInstance()))
-                                    .addLast("encoder", new ProtobufEncoder())
-                                    .addLast(new ProtoSServerHandler());
-
-                            ch.pipeline()
-                                    .addLast("decoder", new ProtobufDecoder(DataInfo.DMessage.getDefaultInstance()))
-                                    .addLast("encoder", new ProtobufEncoder())
-                                    .addLast(new ProtoDServerHandler());
+                            // FST、StudentPOJO、DataInfo 三种协议共用一个端口，按客户端发来的协议标记只安装其中一套编解码器
+                            ch.pipeline().addLast(new PortUnificationHandler(dataHandlers, recyclableDataHandlers));
                         }
                     })
                     .option(ChannelOption.SO_BACKLOG, 128)
@@ -79,6 +80,7 @@ public class Server {
             //释放 channel 和 块，直到它被关闭
             bossGroup.shutdownGracefully();
             workerGroup.shutdownGracefully();
+            slaveGroup.shutdownGracefully();
         }
     }
 